@@ -0,0 +1,15 @@
+package com.example.appointment.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 支持 Idempotency-Key 请求头的接口
+ * 同一用户携带相同幂等键重复提交时直接返回首次成功执行的响应，并发的重复请求合并为一次执行
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
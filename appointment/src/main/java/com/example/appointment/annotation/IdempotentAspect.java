@@ -0,0 +1,84 @@
+package com.example.appointment.annotation;
+
+import com.example.appointment.exception.BusinessException;
+import com.example.appointment.service.IdempotencyService;
+import com.example.appointment.utils.UserUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * 幂等请求切面
+ * 请求携带 Idempotency-Key 时按“用户 + 接口 + 幂等键”交给 IdempotencyService 执行，未携带时按原样执行；
+ * 查询参数和 @RequestBody 参数作为请求内容，同一幂等键的重复请求内容必须一致。
+ * 在角色验证之后执行，重放响应前同样需要通过权限校验
+ */
+@Aspect
+@Component
+@Order(2)
+public class IdempotentAspect {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Around("@annotation(idempotent)")
+    public Object handle(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return joinPoint.proceed();
+        }
+        HttpServletRequest request = attributes.getRequest();
+        String key = request.getHeader(HEADER);
+        if (key == null || key.isBlank()) {
+            return joinPoint.proceed();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key 长度不能超过" + MAX_KEY_LENGTH);
+        }
+
+        Long userId = UserUtils.getCurrentUserId();
+        String scopedKey = (userId != null ? userId : "anonymous") + ":"
+                + request.getMethod() + ":" + request.getRequestURI() + ":" + key;
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return idempotencyService.execute(scopedKey, requestBody(request, method, joinPoint.getArgs()),
+                method.getGenericReturnType(), joinPoint::proceed);
+    }
+
+    /**
+     * 请求内容：查询参数加上 @RequestBody 参数反序列化后的JSON
+     */
+    private String requestBody(HttpServletRequest request, Method method, Object[] args) throws Exception {
+        StringBuilder body = new StringBuilder();
+        if (request.getQueryString() != null) {
+            body.append(request.getQueryString());
+        }
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < args.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof RequestBody) {
+                    body.append('\n').append(objectMapper.writeValueAsString(args[i]));
+                }
+            }
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.appointment.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流（令牌桶）
+ * 按当前登录用户限流，未登录时按客户端IP限流；每个接口单独计数
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+    /**
+     * 桶容量，即允许的突发请求数
+     */
+    int capacity();
+
+    /**
+     * 每秒补充的令牌数
+     */
+    double permitsPerSecond();
+}
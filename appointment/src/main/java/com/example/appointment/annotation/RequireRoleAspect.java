@@ -1,5 +1,6 @@
 package com.example.appointment.annotation;
 
+import com.example.appointment.common.AuthPrincipal;
 import com.example.appointment.exception.UnauthorizedException;
 import com.example.appointment.service.UserService;
 import com.example.appointment.utils.UserUtils;
@@ -7,6 +8,7 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
@@ -18,6 +20,7 @@ import java.util.List;
  */
 @Aspect
 @Component
+@Order(1)
 public class RequireRoleAspect {
 
     @Autowired
@@ -31,7 +34,11 @@ public class RequireRoleAspect {
         }
 
         List<String> allowedRoles = Arrays.asList(requireRole.value());
-        String userRole = userService.getUserRoleById(userId);
+        // 优先使用认证时已缓存的角色，仅在缺少认证信息时查库
+        AuthPrincipal principal = UserUtils.getCurrentPrincipal();
+        String userRole = principal != null && userId.equals(principal.getId())
+                ? principal.getRole()
+                : userService.getUserRoleById(userId);
         
         if (!allowedRoles.contains(userRole)) {
             throw new UnauthorizedException("没有权限执行此操作");
@@ -0,0 +1,14 @@
+package com.example.appointment.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 启用预约排队室时，请求需携带已放行的排队凭证（X-Waiting-Room-Ticket 请求头）
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WaitingRoomGuard {
+}
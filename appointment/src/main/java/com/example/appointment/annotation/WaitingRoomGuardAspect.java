@@ -0,0 +1,68 @@
+package com.example.appointment.annotation;
+
+import com.example.appointment.dto.AppointmentDTO;
+import com.example.appointment.dto.OneStepAppointmentRequest;
+import com.example.appointment.repository.DoctorRepository;
+import com.example.appointment.service.OneStepAppointmentService;
+import com.example.appointment.service.WaitingRoomService;
+import com.example.appointment.utils.UserUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 预约排队室切面
+ * 在幂等重放之后执行，已完成的重复请求无需再次排队。
+ * 凭证必须属于本次预约实际落到的科室：普通预约取所选医生的科室，一键预约取指定科室或症状分析推荐的科室，无法确定时拒绝
+ */
+@Aspect
+@Component
+@Order(3)
+public class WaitingRoomGuardAspect {
+
+    public static final String HEADER = "X-Waiting-Room-Ticket";
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private OneStepAppointmentService oneStepAppointmentService;
+
+    @Before("@annotation(waitingRoomGuard)")
+    public void checkAdmission(JoinPoint joinPoint, WaitingRoomGuard waitingRoomGuard) {
+        if (!waitingRoomService.isEnabled()) {
+            return;
+        }
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        waitingRoomService.checkAdmitted(request.getHeader(HEADER), UserUtils.getCurrentUserId(),
+                resolveDepartmentId(joinPoint.getArgs()));
+    }
+
+    private Long resolveDepartmentId(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof AppointmentDTO) {
+                AppointmentDTO appointment = (AppointmentDTO) arg;
+                return appointment.getDoctorId() != null
+                        ? doctorRepository.findDepartmentIdById(appointment.getDoctorId())
+                        : appointment.getDepartmentId();
+            }
+            if (arg instanceof OneStepAppointmentRequest) {
+                return oneStepAppointmentService.resolveDepartmentId((OneStepAppointmentRequest) arg);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.appointment.common;
+
+/**
+ * 当前请求的认证用户信息（不可变）
+ * 由JwtAuthorizationFilter解析token后生成，过滤器、拦截器、切面共用同一份
+ */
+public final class AuthPrincipal {
+    private final Long id;
+    private final String username;
+    private final String role;
+
+    public AuthPrincipal(Long id, String username, String role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+}
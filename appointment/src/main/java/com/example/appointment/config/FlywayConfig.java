@@ -0,0 +1,29 @@
+package com.example.appointment.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据库迁移配置
+ * 表结构仍由 Hibernate（ddl-auto: update）根据实体维护，索引等由 db/migration 下的版本化脚本管理。
+ * 脚本依赖 Hibernate 已建好的表，因此关闭 Spring Boot 的自动迁移，改为在 EntityManagerFactory 初始化之后执行；
+ * 已有数据的库首次迁移时自动建立基线（版本0）
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean(initMethod = "migrate")
+    @DependsOn("entityManagerFactory")
+    public Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.appointment.config;
 
 import com.example.appointment.common.Result;
+import com.example.appointment.dto.WaitingRoomTicketDTO;
+import com.example.appointment.exception.IdempotencyKeyMismatchException;
+import com.example.appointment.exception.WaitingRoomException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @ExceptionHandler(WaitingRoomException.class)
+    public Result<WaitingRoomTicketDTO> handleWaitingRoomException(WaitingRoomException e) {
+        Result<WaitingRoomTicketDTO> result = Result.error(429, e.getMessage());
+        result.setData(e.getTicket());
+        return result;
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public Result<Void> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException e) {
+        return Result.error(HttpStatus.UNPROCESSABLE_ENTITY.value(), e.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public Result<Void> handleRuntimeException(RuntimeException e) {
         log.warn("RuntimeException caught: {}", e.getMessage(), e);
@@ -1,6 +1,7 @@
 package com.example.appointment.config;
 
 import com.example.appointment.interceptor.AuthInterceptor;
+import com.example.appointment.interceptor.RateLimitInterceptor;
 import com.example.appointment.interceptor.RoleInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +14,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
     private final AuthInterceptor authInterceptor;
     private final RoleInterceptor roleInterceptor;
+    private final RateLimitInterceptor rateLimitInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
@@ -67,6 +69,11 @@ public class WebConfig implements WebMvcConfigurer {
                     "/api/departments/**"
                 )
                 .order(2);
+
+        // 限流拦截器，在认证之后执行以便按用户限流
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/**")
+                .order(3);
     }
 
     @Override
@@ -74,7 +81,7 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With")
+                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "Idempotency-Key", "X-Waiting-Room-Ticket")
                 .exposedHeaders("*")
                 .allowCredentials(true)
                 .maxAge(3600);
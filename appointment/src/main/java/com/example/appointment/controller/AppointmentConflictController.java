@@ -1,16 +1,23 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.RequireRole;
 import com.example.appointment.dto.TimeConflictAnalysisDTO;
+import com.example.appointment.entity.AppointmentConflictReport;
 import com.example.appointment.service.AppointmentConflictService;
+import com.example.appointment.service.AppointmentOutboxService;
+import com.example.appointment.service.ConflictAuditService;
 import com.example.appointment.service.SmartReminderService;
 import com.example.appointment.common.Result;
 import com.example.appointment.dto.AppointmentConflictDTO;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +30,8 @@ public class AppointmentConflictController {
 
     private final AppointmentConflictService appointmentConflictService;
     private final SmartReminderService smartReminderService;
+    private final AppointmentOutboxService appointmentOutboxService;
+    private final ConflictAuditService conflictAuditService;
 
     /**
      * 分析预约时间冲突
@@ -127,6 +136,17 @@ public class AppointmentConflictController {
         }
     }
 
+    /**
+     * 预约事件发件箱延迟：当前积压延迟与最近一次投递的最大延迟（毫秒）
+     */
+    @GetMapping("/outbox/lag")
+    public Result<Map<String, Object>> getOutboxLag() {
+        Map<String, Object> lag = new HashMap<>();
+        lag.put("pendingLagMillis", appointmentOutboxService.getPendingLagMillis());
+        lag.put("lastProcessedLagMillis", appointmentOutboxService.getLastProcessedLagMillis());
+        return Result.success(lag);
+    }
+
     /**
      * 获取预约统计信息
      */
@@ -142,4 +162,34 @@ public class AppointmentConflictController {
             return Result.error("获取预约统计失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 全院预约冲突审计：重写指定日期（默认次日）的冲突报告
+     */
+    @PostMapping("/audit")
+    @RequireRole({"ADMIN"})
+    public Result<Map<String, Object>> runConflictAudit(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate auditDate = date != null ? date : LocalDate.now().plusDays(1);
+        log.info("Running conflict audit for date: {}", auditDate);
+        
+        try {
+            return Result.success(conflictAuditService.audit(auditDate));
+        } catch (Exception e) {
+            log.error("Error running conflict audit", e);
+            return Result.error("冲突审计失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询指定日期的冲突审计报告
+     */
+    @GetMapping("/audit")
+    @RequireRole({"ADMIN"})
+    public Result<List<AppointmentConflictReport>> getConflictReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "500") int limit) {
+        return Result.success(conflictAuditService.getReport(date, type, Math.min(Math.max(limit, 1), 5000)));
+    }
+}
@@ -1,19 +1,31 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.Idempotent;
+import com.example.appointment.annotation.RateLimit;
 import com.example.appointment.annotation.RequireRole;
+import com.example.appointment.annotation.WaitingRoomGuard;
 import com.example.appointment.common.Result;
 import com.example.appointment.dto.AppointmentDTO;
 import com.example.appointment.dto.AppointmentResultDTO;
+import com.example.appointment.dto.CursorPage;
+import com.example.appointment.exception.BadRequestException;
+import com.example.appointment.service.AppointmentExportService;
 import com.example.appointment.service.AppointmentService;
 import com.example.appointment.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.List;
@@ -28,9 +40,13 @@ public class AppointmentController {
 
     private final AppointmentService appointmentService;
     private final UserService userService;
+    private final AppointmentExportService appointmentExportService;
 
     @PostMapping
     @RequireRole({"STUDENT", "TEACHER"})
+    @Idempotent
+    @WaitingRoomGuard
+    @RateLimit(capacity = 5, permitsPerSecond = 0.5)
     public Result<AppointmentResultDTO> createAppointment(@Valid @RequestBody AppointmentDTO appointmentDTO) {
         // 获取当前登录用户
         appointmentDTO.setPatientId(userService.getCurrentUser().getId());
@@ -51,6 +67,7 @@ public class AppointmentController {
 
     @DeleteMapping("/{id}")
     @RequireRole({"STUDENT", "TEACHER"})
+    @RateLimit(capacity = 5, permitsPerSecond = 0.5)
     public Result<Void> cancelAppointment(@PathVariable Long id) {
         appointmentService.cancelAppointment(id);
         return Result.success();
@@ -117,6 +134,71 @@ public class AppointmentController {
         return Result.success(appointmentService.getDepartmentAppointments(departmentId, pageable));
     }
 
+    /**
+     * 游标分页获取当前患者的预约列表，cursor 为上一页返回的 nextCursor
+     */
+    @GetMapping("/patient/cursor")
+    @RequireRole({"STUDENT", "TEACHER"})
+    public Result<CursorPage<AppointmentDTO>> getPatientAppointmentsByCursor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        Long patientId = userService.getCurrentUser().getId();
+        return Result.success(appointmentService.getPatientAppointmentsByCursor(
+            patientId, date, status, cursor, size, includeTotal));
+    }
+
+    @GetMapping("/doctor/{doctorId}/cursor")
+    @RequireRole({"ADMIN", "DOCTOR"})
+    public Result<CursorPage<AppointmentDTO>> getDoctorAppointmentsByCursor(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return Result.success(appointmentService.getDoctorAppointmentsByCursor(
+            doctorId, date, status, cursor, size, includeTotal));
+    }
+
+    @GetMapping("/department/{departmentId}/cursor")
+    @RequireRole({"ADMIN"})
+    public Result<CursorPage<AppointmentDTO>> getDepartmentAppointmentsByCursor(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return Result.success(appointmentService.getDepartmentAppointmentsByCursor(
+            departmentId, date, status, cursor, size, includeTotal));
+    }
+
+    /**
+     * 流式导出预约CSV，条件均可选，日期为闭区间；数据边查边写，不在内存中汇总
+     */
+    @GetMapping("/export")
+    @RequireRole({"ADMIN"})
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String status) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new BadRequestException("开始日期不能晚于结束日期");
+        }
+        String filename = "appointments-" + LocalDate.now() + ".csv";
+        StreamingResponseBody body = outputStream -> appointmentExportService.exportCsv(
+            departmentId, doctorId, startDate, endDate, status, outputStream);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .body(body);
+    }
+
     @GetMapping("/doctor/{doctorId}/availability")
     public Result<Boolean> checkDoctorAvailability(
             @PathVariable Long doctorId,
@@ -140,6 +222,8 @@ public class AppointmentController {
 
     @PostMapping("/{id}/cancel")
     @RequireRole({"STUDENT", "TEACHER"})
+    @Idempotent
+    @RateLimit(capacity = 5, permitsPerSecond = 0.5)
     public Result<Void> cancelAppointmentRequest(@PathVariable Long id) {
         appointmentService.cancelAppointment(id);
         return Result.success();
@@ -1,5 +1,6 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.RateLimit;
 import com.example.appointment.dto.DoctorReviewDTO;
 import com.example.appointment.dto.DoctorReviewStatsDTO;
 import com.example.appointment.service.DoctorReviewService;
@@ -30,6 +31,7 @@ public class DoctorReviewController {
     private final DoctorReviewService doctorReviewService;
     
     @PostMapping
+    @RateLimit(capacity = 3, permitsPerSecond = 0.05)
     @Operation(summary = "创建医生评价", description = "患者对医生进行评价")
     public ResponseEntity<DoctorReviewDTO> createReview(@Valid @RequestBody DoctorReviewDTO reviewDTO) {
         log.info("创建医生评价请求: {}", reviewDTO);
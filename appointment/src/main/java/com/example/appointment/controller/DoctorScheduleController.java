@@ -2,7 +2,9 @@ package com.example.appointment.controller;
 
 import com.example.appointment.annotation.RequireRole;
 import com.example.appointment.common.Result;
+import com.example.appointment.dto.AvailabilityCalendarDTO;
 import com.example.appointment.dto.DoctorScheduleDTO;
+import com.example.appointment.service.AvailabilityCalendarService;
 import com.example.appointment.service.DoctorScheduleService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,7 @@ public class DoctorScheduleController {
     private static final Logger log = LoggerFactory.getLogger(DoctorScheduleController.class);
 
     private final DoctorScheduleService scheduleService;
+    private final AvailabilityCalendarService availabilityCalendarService;
 
     @PostMapping
     @RequireRole({"ADMIN", "DOCTOR"})
@@ -84,14 +87,32 @@ public class DoctorScheduleController {
         return Result.success(scheduleService.getDepartmentSchedules(departmentId, date));
     }
 
+    /**
+     * 科室月度号源日历，每位医生一段位图，一次请求即可渲染整月
+     */
+    @GetMapping("/department/{departmentId}/calendar")
+    public Result<AvailabilityCalendarDTO> getDepartmentCalendar(
+            @PathVariable Long departmentId,
+            @RequestParam int year,
+            @RequestParam int month) {
+        if (month < 1 || month > 12) {
+            return Result.error("月份取值为1-12");
+        }
+        return Result.success(availabilityCalendarService.getDepartmentCalendar(departmentId, year, month));
+    }
+
     @GetMapping("/doctor/{doctorId}/future")
-    public Result<List<DoctorScheduleDTO>> getFutureSchedulesByDoctor(@PathVariable Long doctorId) {
-        return Result.success(scheduleService.getFutureSchedulesByDoctor(doctorId));
+    public Result<List<DoctorScheduleDTO>> getFutureSchedulesByDoctor(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false, defaultValue = "100") Integer limit) {
+        return Result.success(scheduleService.getFutureSchedulesByDoctor(doctorId, limit));
     }
 
     @GetMapping("/department/{departmentId}/future")
-    public Result<List<DoctorScheduleDTO>> getFutureSchedulesByDepartment(@PathVariable Long departmentId) {
-        return Result.success(scheduleService.getFutureSchedulesByDepartment(departmentId));
+    public Result<List<DoctorScheduleDTO>> getFutureSchedulesByDepartment(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false, defaultValue = "100") Integer limit) {
+        return Result.success(scheduleService.getFutureSchedulesByDepartment(departmentId, limit));
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.RateLimit;
 import com.example.appointment.common.Result;
 import com.example.appointment.dto.CommentDTO;
 import com.example.appointment.dto.ForumStatsDTO;
@@ -71,6 +72,7 @@ public class ForumController {
     }
 
     @PostMapping("/posts")
+    @RateLimit(capacity = 3, permitsPerSecond = 0.05)
     public Result<PostDTO> createPost(@RequestBody PostDTO postDTO) {
         // 允许未登录用户发帖，使用默认用户ID或从请求中获取
         Long authorId = 1L; // 默认使用admin用户作为匿名发帖者
@@ -100,6 +102,7 @@ public class ForumController {
     }
 
     @PostMapping("/posts/{id}/like")
+    @RateLimit(capacity = 20, permitsPerSecond = 2)
     public Result<Void> likePost(@PathVariable Long id) {
         postService.likePost(id);
         return Result.success();
@@ -107,10 +110,11 @@ public class ForumController {
 
     @GetMapping("/posts/search")
     public Result<Page<PostDTO>> searchPosts(
-            @RequestParam String keyword,
+            @RequestParam(defaultValue = "") String keyword,
+            @RequestParam(required = false) String tags,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return Result.success(postService.searchPosts(keyword, PageRequest.of(page, size)));
+        return Result.success(postService.searchPosts(keyword, tags, PageRequest.of(page, size)));
     }
 
     @GetMapping("/posts/user/{authorId}")
@@ -163,6 +167,7 @@ public class ForumController {
     }
 
     @PostMapping("/posts/{postId}/comments")
+    @RateLimit(capacity = 5, permitsPerSecond = 0.2)
     public Result<CommentDTO> createComment(
             @PathVariable Long postId,
             @RequestBody CommentDTO commentDTO) {
@@ -198,6 +203,7 @@ public class ForumController {
     }
 
     @PostMapping("/posts/{postId}/comments/{commentId}/like")
+    @RateLimit(capacity = 20, permitsPerSecond = 2)
     public Result<Void> likeComment(
             @PathVariable Long postId,
             @PathVariable Long commentId) {
@@ -1,5 +1,8 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.Idempotent;
+import com.example.appointment.annotation.RateLimit;
+import com.example.appointment.annotation.WaitingRoomGuard;
 import com.example.appointment.dto.OneStepAppointmentRequest;
 import com.example.appointment.dto.OneStepAppointmentResponse;
 import com.example.appointment.dto.TimeSlotAvailabilityResponse;
@@ -29,6 +32,9 @@ public class OneStepAppointmentController {
      * 一键预约接口
      */
     @PostMapping("/appointment")
+    @Idempotent
+    @WaitingRoomGuard
+    @RateLimit(capacity = 5, permitsPerSecond = 0.5)
     public ResponseEntity<ApiResponse<OneStepAppointmentResponse>> createOneStepAppointment(
             @RequestBody OneStepAppointmentRequest request) {
         
@@ -1,5 +1,6 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.RateLimit;
 import com.example.appointment.common.Result;
 import com.example.appointment.dto.PostDTO;
 import com.example.appointment.service.PostService;
@@ -17,6 +18,7 @@ public class PostController {
     }
 
     @PostMapping
+    @RateLimit(capacity = 3, permitsPerSecond = 0.05)
     public Result<PostDTO> createPost(@RequestBody PostDTO postDTO) {
         return Result.success(postService.createPost(postDTO));
     }
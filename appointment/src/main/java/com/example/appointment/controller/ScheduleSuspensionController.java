@@ -0,0 +1,42 @@
+package com.example.appointment.controller;
+
+import com.example.appointment.annotation.RequireRole;
+import com.example.appointment.common.Result;
+import com.example.appointment.dto.ScheduleSuspensionProgressDTO;
+import com.example.appointment.dto.ScheduleSuspensionRequest;
+import com.example.appointment.service.ScheduleSuspensionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 批量停诊：按科室或医生停诊一段日期内的排班，取消受影响的预约并通知患者
+ */
+@RestController
+@RequestMapping("/api/schedule/suspensions")
+@RequiredArgsConstructor
+public class ScheduleSuspensionController {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleSuspensionController.class);
+
+    private final ScheduleSuspensionService suspensionService;
+
+    @PostMapping
+    @RequireRole({"ADMIN"})
+    public Result<ScheduleSuspensionProgressDTO> suspend(@RequestBody @Valid ScheduleSuspensionRequest request) {
+        log.info("提交批量停诊：{}", request);
+        return Result.success(suspensionService.submit(request));
+    }
+
+    @GetMapping("/{jobId}")
+    @RequireRole({"ADMIN"})
+    public Result<ScheduleSuspensionProgressDTO> getProgress(@PathVariable String jobId) {
+        ScheduleSuspensionProgressDTO progress = suspensionService.getProgress(jobId);
+        if (progress == null) {
+            return Result.error(404, "停诊任务不存在或已过期");
+        }
+        return Result.success(progress);
+    }
+}
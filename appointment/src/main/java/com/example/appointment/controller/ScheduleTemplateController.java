@@ -0,0 +1,87 @@
+package com.example.appointment.controller;
+
+import com.example.appointment.annotation.RequireRole;
+import com.example.appointment.common.Result;
+import com.example.appointment.dto.ScheduleGenerationRequest;
+import com.example.appointment.dto.ScheduleGenerationResultDTO;
+import com.example.appointment.dto.ScheduleTemplateDTO;
+import com.example.appointment.dto.ScheduleTemplateExclusionDTO;
+import com.example.appointment.service.ScheduleTemplateService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 排班模板：维护医生每周出诊模板与例外日期，按模板批量生成排班
+ */
+@RestController
+@RequestMapping("/api/schedule/templates")
+@RequiredArgsConstructor
+public class ScheduleTemplateController {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleTemplateController.class);
+
+    private final ScheduleTemplateService templateService;
+
+    @PostMapping
+    @RequireRole({"ADMIN"})
+    public Result<ScheduleTemplateDTO> saveTemplate(@RequestBody @Valid ScheduleTemplateDTO templateDTO) {
+        log.info("保存排班模板：{}", templateDTO);
+        return Result.success(templateService.saveTemplate(templateDTO));
+    }
+
+    @DeleteMapping("/{id}")
+    @RequireRole({"ADMIN"})
+    public Result<Void> deleteTemplate(@PathVariable Long id) {
+        log.info("删除排班模板，ID：{}", id);
+        templateService.deleteTemplate(id);
+        return Result.success();
+    }
+
+    @GetMapping("/doctor/{doctorId}")
+    @RequireRole({"ADMIN", "DOCTOR"})
+    public Result<List<ScheduleTemplateDTO>> getDoctorTemplates(@PathVariable Long doctorId) {
+        return Result.success(templateService.getDoctorTemplates(doctorId));
+    }
+
+    @GetMapping("/department/{departmentId}")
+    @RequireRole({"ADMIN"})
+    public Result<List<ScheduleTemplateDTO>> getDepartmentTemplates(@PathVariable Long departmentId) {
+        return Result.success(templateService.getDepartmentTemplates(departmentId));
+    }
+
+    @PostMapping("/exclusions")
+    @RequireRole({"ADMIN"})
+    public Result<ScheduleTemplateExclusionDTO> addExclusion(@RequestBody @Valid ScheduleTemplateExclusionDTO exclusionDTO) {
+        log.info("添加排班例外：{}", exclusionDTO);
+        return Result.success(templateService.addExclusion(exclusionDTO));
+    }
+
+    @DeleteMapping("/exclusions/{id}")
+    @RequireRole({"ADMIN"})
+    public Result<Void> deleteExclusion(@PathVariable Long id) {
+        log.info("删除排班例外，ID：{}", id);
+        templateService.deleteExclusion(id);
+        return Result.success();
+    }
+
+    @GetMapping("/exclusions/doctor/{doctorId}")
+    @RequireRole({"ADMIN", "DOCTOR"})
+    public Result<List<ScheduleTemplateExclusionDTO>> getDoctorExclusions(@PathVariable Long doctorId) {
+        return Result.success(templateService.getDoctorExclusions(doctorId));
+    }
+
+    /**
+     * 按模板生成日期范围内的排班
+     */
+    @PostMapping("/generate")
+    @RequireRole({"ADMIN"})
+    public Result<ScheduleGenerationResultDTO> generate(@RequestBody @Valid ScheduleGenerationRequest request) {
+        log.info("按模板生成排班：{}", request);
+        return Result.success(templateService.generate(request));
+    }
+}
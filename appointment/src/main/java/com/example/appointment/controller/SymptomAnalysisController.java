@@ -1,5 +1,6 @@
 package com.example.appointment.controller;
 
+import com.example.appointment.annotation.RequireRole;
 import com.example.appointment.entity.Department;
 import com.example.appointment.service.SymptomAnalysisService;
 import lombok.RequiredArgsConstructor;
@@ -142,4 +143,27 @@ public class SymptomAnalysisController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 重新加载症状词典
+     */
+    @PostMapping("/dictionary/reload")
+    @RequireRole({"ADMIN"})
+    public ResponseEntity<?> reloadDictionary() {
+        try {
+            int keywordCount = symptomAnalysisService.reloadDictionary();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("keywordCount", keywordCount);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("症状词典加载失败", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "症状词典加载失败: " + e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.appointment.controller;
+
+import com.example.appointment.common.Result;
+import com.example.appointment.dto.WaitingRoomTicketDTO;
+import com.example.appointment.exception.UnauthorizedException;
+import com.example.appointment.service.WaitingRoomService;
+import com.example.appointment.utils.UserUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 预约排队室：领取排队凭证、轮询排队位置
+ */
+@RestController
+@RequestMapping("/api/waiting-room")
+@RequiredArgsConstructor
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    @PostMapping("/departments/{departmentId}/tickets")
+    public Result<WaitingRoomTicketDTO> issueTicket(@PathVariable Long departmentId) {
+        return Result.success(waitingRoomService.issue(departmentId, currentUserId()));
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public Result<WaitingRoomTicketDTO> getTicket(@PathVariable String ticketId) {
+        WaitingRoomTicketDTO ticket = waitingRoomService.getStatus(ticketId, currentUserId());
+        if (ticket == null) {
+            return Result.error(404, "排队凭证无效或已过期，请重新排队");
+        }
+        return Result.success(ticket);
+    }
+
+    private static Long currentUserId() {
+        Long userId = UserUtils.getCurrentUserId();
+        if (userId == null) {
+            throw new UnauthorizedException("未登录");
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 科室月度号源日历（紧凑格式）
+ * 每位医生两段 base64url（无填充）编码的位图，格子序号 i = (日 - 1) * periods.size() + 时段下标，
+ * 第 i 位位于第 i / 8 个字节的第 i % 8 位（低位在前）：
+ * open 每格1位，1 表示有正常排班且仍有余号；
+ * levels 每格2位，0-无排班或停诊，1-已满或剩余不足20%，2-剩余20%-50%，3-剩余超过50%
+ */
+@Data
+public class AvailabilityCalendarDTO {
+    private Long departmentId;
+
+    private int year;
+
+    private int month;
+
+    private int days;
+
+    private List<String> periods;
+
+    private List<DoctorAvailability> doctors;
+
+    @Data
+    public static class DoctorAvailability {
+        private Long doctorId;
+
+        private String doctorName;
+
+        private String open;
+
+        private String levels;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * nextCursor 为不透明的续页令牌，原样传回即可取下一页；没有更多数据时为null
+ */
+@Data
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    /**
+     * 总数估计值（短时间缓存），未请求时为null
+     */
+    private Long totalEstimate;
+}
@@ -0,0 +1,18 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 预约提醒消息
+ */
+@Data
+public class ReminderMessage {
+    private Long appointmentId;
+    private Long patientId;
+    private String patientName;
+    private String doctorName;
+    private LocalDateTime appointmentTime;
+    private String content;
+}
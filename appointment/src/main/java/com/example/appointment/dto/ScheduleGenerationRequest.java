@@ -0,0 +1,22 @@
+package com.example.appointment.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 按模板生成排班的请求，科室和医生至少指定一个；同时指定时只生成该科室下该医生的排班
+ */
+@Data
+public class ScheduleGenerationRequest {
+    private Long departmentId;
+
+    private Long doctorId;
+
+    @NotNull(message = "请选择开始日期")
+    private LocalDate startDate;
+
+    @NotNull(message = "请选择结束日期")
+    private LocalDate endDate;
+}
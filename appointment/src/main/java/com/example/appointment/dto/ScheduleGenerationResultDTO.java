@@ -0,0 +1,36 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+/**
+ * 按模板生成排班的结果
+ */
+@Data
+public class ScheduleGenerationResultDTO {
+    /**
+     * 参与展开的模板数
+     */
+    private int templateCount;
+
+    /**
+     * 模板在日期范围内展开的排班数
+     */
+    private int candidateCount;
+
+    /**
+     * 新建的排班数
+     */
+    private int createdCount;
+
+    /**
+     * 已存在同医生同日期同时段排班而跳过的数量
+     */
+    private int skippedExistingCount;
+
+    /**
+     * 命中模板例外而跳过的数量
+     */
+    private int skippedExclusionCount;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,46 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量停诊任务进度
+ */
+@Data
+public class ScheduleSuspensionProgressDTO {
+    private String jobId;
+
+    /**
+     * RUNNING, COMPLETED, FAILED
+     */
+    private String status;
+
+    /**
+     * 待停诊的排班数
+     */
+    private int totalSessions;
+
+    /**
+     * 已处理的排班数
+     */
+    private int processedSessions;
+
+    /**
+     * 已取消的预约数
+     */
+    private int cancelledAppointments;
+
+    /**
+     * 已加入通知队列的患者通知数
+     */
+    private int notificationsQueued;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private long elapsedMillis;
+
+    private String error;
+}
@@ -0,0 +1,26 @@
+package com.example.appointment.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 批量停诊请求，科室和医生至少指定一个；时段为空时停诊全天
+ */
+@Data
+public class ScheduleSuspensionRequest {
+    private Long departmentId;
+
+    private Long doctorId;
+
+    @NotNull(message = "请选择开始日期")
+    private LocalDate startDate;
+
+    @NotNull(message = "请选择结束日期")
+    private LocalDate endDate;
+
+    private String period; // MORNING, AFTERNOON, EVENING
+
+    private String reason;
+}
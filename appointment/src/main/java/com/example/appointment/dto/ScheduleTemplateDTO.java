@@ -0,0 +1,29 @@
+package com.example.appointment.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ScheduleTemplateDTO {
+    private Long id;
+
+    @NotNull(message = "请选择医生")
+    private Long doctorId;
+
+    private Long departmentId;
+
+    @NotNull(message = "请选择星期")
+    @Min(value = 1, message = "星期取值为1-7")
+    @Max(value = 7, message = "星期取值为1-7")
+    private Integer dayOfWeek; // 1-周一 ... 7-周日
+
+    @NotBlank(message = "请选择时段")
+    private String period; // MORNING, AFTERNOON
+
+    @NotNull(message = "请设置最大预约人数")
+    @Min(value = 1, message = "最大预约人数至少为1")
+    private Integer maxAppointments;
+}
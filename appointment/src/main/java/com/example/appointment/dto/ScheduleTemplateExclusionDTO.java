@@ -0,0 +1,21 @@
+package com.example.appointment.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class ScheduleTemplateExclusionDTO {
+    private Long id;
+
+    @NotNull(message = "请选择医生")
+    private Long doctorId;
+
+    @NotNull(message = "请选择日期")
+    private LocalDate exclusionDate;
+
+    private String period; // 为空表示全天
+
+    private String reason;
+}
@@ -0,0 +1,24 @@
+package com.example.appointment.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 预约排队凭证状态
+ */
+@Data
+public class WaitingRoomTicketDTO {
+    private String ticketId;
+    private Long departmentId;
+    /**
+     * 前方还需等待的人数，已放行时为0
+     */
+    private long position;
+    private long estimatedWaitSeconds;
+    private boolean admitted;
+    /**
+     * 放行后凭证的有效期，未放行时为null
+     */
+    private LocalDateTime admissionExpiresAt;
+}
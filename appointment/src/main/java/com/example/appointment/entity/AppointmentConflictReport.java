@@ -0,0 +1,136 @@
+package com.example.appointment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 预约冲突审计报告
+ * 每行为夜间审计发现的一对冲突预约，由 ConflictAuditService 按审计日期整批重写
+ */
+@Entity
+@Table(name = "appointment_conflict_reports", indexes = {
+        @Index(name = "idx_conflict_reports_date_type", columnList = "audit_date, conflict_type, owner_id")
+})
+public class AppointmentConflictReport {
+
+    public static final String TYPE_DOCTOR = "DOCTOR";
+    public static final String TYPE_PATIENT = "PATIENT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "audit_date", nullable = false)
+    private LocalDate auditDate;
+
+    /**
+     * DOCTOR：同一医生的两个预约间隔过近；PATIENT：同一患者的两个预约间隔过近
+     */
+    @Column(name = "conflict_type", nullable = false, length = 16)
+    private String conflictType;
+
+    /**
+     * 医生ID或患者ID，取决于冲突类型
+     */
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Column(name = "conflicting_appointment_id", nullable = false)
+    private Long conflictingAppointmentId;
+
+    @Column(name = "appointment_time", nullable = false)
+    private LocalDateTime appointmentTime;
+
+    @Column(name = "conflicting_time", nullable = false)
+    private LocalDateTime conflictingTime;
+
+    @Column(name = "minutes_apart", nullable = false)
+    private Long minutesApart;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getAuditDate() {
+        return auditDate;
+    }
+
+    public void setAuditDate(LocalDate auditDate) {
+        this.auditDate = auditDate;
+    }
+
+    public String getConflictType() {
+        return conflictType;
+    }
+
+    public void setConflictType(String conflictType) {
+        this.conflictType = conflictType;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Long getConflictingAppointmentId() {
+        return conflictingAppointmentId;
+    }
+
+    public void setConflictingAppointmentId(Long conflictingAppointmentId) {
+        this.conflictingAppointmentId = conflictingAppointmentId;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public void setAppointmentTime(LocalDateTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+
+    public LocalDateTime getConflictingTime() {
+        return conflictingTime;
+    }
+
+    public void setConflictingTime(LocalDateTime conflictingTime) {
+        this.conflictingTime = conflictingTime;
+    }
+
+    public Long getMinutesApart() {
+        return minutesApart;
+    }
+
+    public void setMinutesApart(Long minutesApart) {
+        this.minutesApart = minutesApart;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.appointment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 预约事件（发件箱）
+ * 与预约在同一事务中写入，由 AppointmentOutboxService 在事务提交后异步投递给各订阅者
+ */
+@Entity
+@Table(name = "appointment_events", indexes = {
+        @Index(name = "idx_appointment_events_processed", columnList = "processed_at, id")
+})
+public class AppointmentEvent {
+
+    public static final String TYPE_CREATED = "CREATED";
+
+    /**
+     * 因医生停诊被取消
+     */
+    public static final String TYPE_SUSPENDED = "SUSPENDED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * 已处理成功的订阅者名称（逗号分隔），重试时跳过这些订阅者
+     */
+    @Column(name = "delivered_subscribers", length = 500)
+    private String deliveredSubscribers;
+
+    /**
+     * 失败后下一次允许重试的时间，为空表示可立即投递
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getDeliveredSubscribers() {
+        return deliveredSubscribers;
+    }
+
+    public void setDeliveredSubscribers(String deliveredSubscribers) {
+        this.deliveredSubscribers = deliveredSubscribers;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -23,6 +23,8 @@ public class Comment {
     @JoinColumn(name = "user_id", nullable = false)
     private User author;
 
+    // 计数由ForumCounterService批量累加写回，保存实体时不覆盖
+    @Column(updatable = false)
     private Integer likes = 0;
 
     @Column(name = "created_at")
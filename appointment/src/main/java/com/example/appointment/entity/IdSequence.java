@@ -0,0 +1,34 @@
+package com.example.appointment.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * 号段表：每个序列一行，next_value 为下一个可分配号段的起点
+ * 由 AppointmentNumberGenerator 按号段批量领取，不直接通过JPA读写
+ */
+@Entity
+@Table(name = "id_sequence")
+public class IdSequence {
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(Long nextValue) {
+        this.nextValue = nextValue;
+    }
+}
@@ -66,7 +66,8 @@ public class Post {
         this.category = category;
     }
 
-    @Column(nullable = false)
+    // 计数由ForumCounterService批量累加写回，保存实体时不覆盖
+    @Column(nullable = false, updatable = false)
     private Integer likes = 0;
     
     public Integer getLikes() {
@@ -77,7 +78,8 @@ public class Post {
         this.likes = likes;
     }
 
-    @Column(nullable = false)
+    // 计数由ForumCounterService批量累加写回，保存实体时不覆盖
+    @Column(nullable = false, updatable = false)
     private Integer views = 0;
     
     public Integer getViews() {
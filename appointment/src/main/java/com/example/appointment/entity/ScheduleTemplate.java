@@ -0,0 +1,112 @@
+package com.example.appointment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 排班模板：医生每周固定的出诊时段
+ * 每行表示“每周几的某个时段出诊、最多接诊多少人”，由 ScheduleTemplateService 按日期范围展开为 doctor_schedule 排班
+ */
+@Entity
+@Table(name = "schedule_templates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_schedule_templates_doctor_day_period", columnNames = {"doctor_id", "day_of_week", "period"})
+}, indexes = {
+        @Index(name = "idx_schedule_templates_department", columnList = "department_id")
+})
+public class ScheduleTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "department_id", nullable = false)
+    private Long departmentId;
+
+    /**
+     * 星期几，1-7 对应周一至周日
+     */
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @Column(name = "period", nullable = false)
+    private String period;
+
+    @Column(name = "max_appointments", nullable = false)
+    private Integer maxAppointments;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Long getDepartmentId() {
+        return departmentId;
+    }
+
+    public void setDepartmentId(Long departmentId) {
+        this.departmentId = departmentId;
+    }
+
+    public Integer getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(Integer dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public Integer getMaxAppointments() {
+        return maxAppointments;
+    }
+
+    public void setMaxAppointments(Integer maxAppointments) {
+        this.maxAppointments = maxAppointments;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.appointment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 排班模板例外：医生在某天（或某天的某个时段）不按模板出诊，如节假日、休假、外出会诊。
+ * 按模板生成排班时跳过这些日期
+ */
+@Entity
+@Table(name = "schedule_template_exclusions", indexes = {
+        @Index(name = "idx_schedule_template_exclusions_doctor_date", columnList = "doctor_id, exclusion_date")
+})
+public class ScheduleTemplateExclusion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "exclusion_date", nullable = false)
+    private LocalDate exclusionDate;
+
+    /**
+     * 不出诊的时段，为空表示全天
+     */
+    @Column(name = "period")
+    private String period;
+
+    @Column(name = "reason", length = 200)
+    private String reason;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public LocalDate getExclusionDate() {
+        return exclusionDate;
+    }
+
+    public void setExclusionDate(LocalDate exclusionDate) {
+        this.exclusionDate = exclusionDate;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.appointment.exception;
+
+/**
+ * 幂等键已被请求内容不同的请求使用
+ */
+public class IdempotencyKeyMismatchException extends BusinessException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
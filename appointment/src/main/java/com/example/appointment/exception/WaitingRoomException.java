@@ -0,0 +1,19 @@
+package com.example.appointment.exception;
+
+import com.example.appointment.dto.WaitingRoomTicketDTO;
+
+/**
+ * 预约需要排队：未持有已放行的排队凭证
+ */
+public class WaitingRoomException extends BusinessException {
+    private final WaitingRoomTicketDTO ticket;
+
+    public WaitingRoomException(String message, WaitingRoomTicketDTO ticket) {
+        super(message);
+        this.ticket = ticket;
+    }
+
+    public WaitingRoomTicketDTO getTicket() {
+        return ticket;
+    }
+}
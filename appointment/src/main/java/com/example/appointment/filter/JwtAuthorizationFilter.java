@@ -1,8 +1,7 @@
 package com.example.appointment.filter;
 
-import com.example.appointment.entity.User;
-import com.example.appointment.repository.UserRepository;
-import com.example.appointment.utils.JwtUtils;
+import com.example.appointment.common.AuthPrincipal;
+import com.example.appointment.service.PrincipalCacheService;
 import com.example.appointment.utils.UserUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -16,7 +15,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Optional;
 
 /**
  * JWT认证过滤器，在AuthenticationFilter之前执行
@@ -29,8 +27,7 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
     
     private static final Logger log = LoggerFactory.getLogger(JwtAuthorizationFilter.class);
 
-    private final JwtUtils jwtUtils;
-    private final UserRepository userRepository;
+    private final PrincipalCacheService principalCacheService;
 
     @Override
     protected void doFilterInternal(
@@ -45,24 +42,18 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             
             try {
-                // 验证token
-                if (jwtUtils.validateToken(token)) {
-                    // 从token中获取用户名
-                    String username = jwtUtils.getUsernameFromToken(token);
+                // 验签解析token并获取用户信息（命中缓存时无需解析和查库）
+                AuthPrincipal principal = principalCacheService.authenticate(token);
+                
+                if (principal != null) {
+                    // 将用户信息设置到请求属性中
+                    request.setAttribute(UserUtils.PRINCIPAL_ATTRIBUTE, principal);
+                    request.setAttribute("userId", principal.getId());
+                    request.setAttribute("username", principal.getUsername());
+                    request.setAttribute("userRole", principal.getRole());
                     
-                    // 从数据库获取用户信息
-                    Optional<User> userOptional = userRepository.findByUsername(username);
-                    
-                    if (userOptional.isPresent()) {
-                        User user = userOptional.get();
-                        // 将用户信息设置到请求属性中
-                        request.setAttribute("userId", user.getId());
-                        request.setAttribute("username", user.getUsername());
-                        request.setAttribute("userRole", user.getRole());
-                        
-                        // 同时设置到ThreadLocal中，供UserUtils使用
-                        UserUtils.setCurrentUserId(user.getId());
-                    }
+                    // 同时设置到ThreadLocal中，供UserUtils使用
+                    UserUtils.setCurrentPrincipal(principal);
                 }
             } catch (Exception e) {
                 log.error("JWT token解析失败", e);
@@ -1,8 +1,7 @@
 package com.example.appointment.interceptor;
 
-import com.example.appointment.entity.User;
-import com.example.appointment.service.UserService;
-import com.example.appointment.utils.JwtUtils;
+import com.example.appointment.common.AuthPrincipal;
+import com.example.appointment.service.PrincipalCacheService;
 import com.example.appointment.utils.UserUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -14,8 +13,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 @Component
 @RequiredArgsConstructor
 public class AuthInterceptor implements HandlerInterceptor {
-    private final JwtUtils jwtUtils;
-    private final UserService userService;
+    private final PrincipalCacheService principalCacheService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -25,6 +23,12 @@ public class AuthInterceptor implements HandlerInterceptor {
             return true;
         }
 
+        // JwtAuthorizationFilter已完成认证时直接使用
+        AuthPrincipal principal = UserUtils.getCurrentPrincipal();
+        if (principal != null) {
+            return true;
+        }
+
         // 获取token
         String token = getTokenFromRequest(request);
         if (token == null) {
@@ -33,27 +37,20 @@ public class AuthInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        // 验证token
-        if (!jwtUtils.validateToken(token)) {
-            response.setStatus(HttpStatus.UNAUTHORIZED.value());
-            response.getWriter().write("token无效或已过期");
-            return false;
-        }
-
-        // 获取用户信息
-        String username = jwtUtils.getUsernameFromToken(token);
-        User user = userService.findUserEntityByUsername(username);
-        if (user == null) {
+        // 验证token并获取用户信息
+        principal = principalCacheService.authenticate(token);
+        if (principal == null) {
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
-            response.getWriter().write("用户不存在");
+            response.getWriter().write("token无效、已过期或用户不存在");
             return false;
         }
 
         // 将用户信息存入request
-        request.setAttribute("currentUser", user);
+        request.setAttribute(UserUtils.PRINCIPAL_ATTRIBUTE, principal);
+        request.setAttribute("userId", principal.getId());
         
         // 同时设置到ThreadLocal中，供UserUtils使用
-        UserUtils.setCurrentUserId(user.getId());
+        UserUtils.setCurrentPrincipal(principal);
         return true;
     }
 
@@ -0,0 +1,93 @@
+package com.example.appointment.interceptor;
+
+import com.example.appointment.annotation.RateLimit;
+import com.example.appointment.common.Result;
+import com.example.appointment.service.RateLimiterService;
+import com.example.appointment.utils.UserUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 限流拦截器
+ * 对标注了 @RateLimit 的接口按“用户（未登录时为客户端IP）+ 接口”限流，超出时返回429
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiterService rateLimiterService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${appointment.rate-limit.trusted-proxies:}")
+    private String trustedProxiesConfig;
+
+    private Set<String> trustedProxies = Collections.emptySet();
+
+    @PostConstruct
+    public void init() {
+        trustedProxies = Arrays.stream(trustedProxiesConfig.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            return true;
+        }
+
+        Long userId = UserUtils.getCurrentUserId();
+        String client = userId != null ? "u" + userId : "ip" + getClientIp(request);
+        String key = client + ":" + handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        if (rateLimiterService.tryAcquire(key, rateLimit.capacity(), rateLimit.permitsPerSecond())) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(objectMapper.writeValueAsString(
+                Result.error(HttpStatus.TOO_MANY_REQUESTS.value(), "操作过于频繁，请稍后再试")));
+        return false;
+    }
+
+    /**
+     * 客户端IP：X-Forwarded-For 可由客户端任意填写，只有直连地址是配置的反向代理时才采用，
+     * 并从右向左跳过代理地址，取第一个非代理地址
+     */
+    private String getClientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (!trustedProxies.contains(remoteAddr) || forwarded == null || forwarded.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.appointment.interceptor;
 
 import com.example.appointment.annotation.RequireRole;
-import com.example.appointment.entity.User;
+import com.example.appointment.common.AuthPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.example.appointment.utils.UserUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
@@ -27,14 +28,14 @@ public class RoleInterceptor implements HandlerInterceptor {
             return true;
         }
 
-        User user = (User) request.getAttribute("currentUser");
-        if (user == null) {
+        AuthPrincipal principal = UserUtils.getCurrentPrincipal();
+        if (principal == null) {
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             response.getWriter().write("未登录");
             return false;
         }
 
-        if (!Arrays.asList(requireRole.value()).contains(user.getRole())) {
+        if (!Arrays.asList(requireRole.value()).contains(principal.getRole())) {
             response.setStatus(HttpStatus.FORBIDDEN.value());
             response.getWriter().write("无权限访问");
             return false;
@@ -0,0 +1,25 @@
+package com.example.appointment.repository;
+
+import com.example.appointment.entity.AppointmentConflictReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AppointmentConflictReportRepository extends JpaRepository<AppointmentConflictReport, Long> {
+
+    @Query(value = "SELECT r.* FROM appointment_conflict_reports r WHERE r.audit_date = :auditDate " +
+           "AND (:conflictType IS NULL OR r.conflict_type = :conflictType) " +
+           "ORDER BY r.conflict_type, r.owner_id, r.appointment_time, r.id LIMIT :limit", nativeQuery = true)
+    List<AppointmentConflictReport> findByAuditDate(
+        @Param("auditDate") LocalDate auditDate, @Param("conflictType") String conflictType, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM appointment_conflict_reports WHERE audit_date = :auditDate", nativeQuery = true)
+    int deleteByAuditDate(@Param("auditDate") LocalDate auditDate);
+}
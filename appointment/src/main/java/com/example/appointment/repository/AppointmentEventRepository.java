@@ -0,0 +1,46 @@
+package com.example.appointment.repository;
+
+import com.example.appointment.entity.AppointmentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AppointmentEventRepository extends JpaRepository<AppointmentEvent, Long> {
+
+    /**
+     * 按ID顺序取ID大于 afterId、已到重试时间的一批未处理事件
+     */
+    @Query(value = "SELECT e.* FROM appointment_events e WHERE e.processed_at IS NULL AND e.id > :afterId " +
+            "AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now) ORDER BY e.id LIMIT :limit", nativeQuery = true)
+    List<AppointmentEvent> findPendingBatch(@Param("afterId") Long afterId, @Param("now") LocalDateTime now,
+                                            @Param("limit") int limit);
+
+    /**
+     * 最早一条未处理事件的创建时间，没有积压时返回null
+     */
+    @Query(value = "SELECT MIN(e.created_at) FROM appointment_events e WHERE e.processed_at IS NULL", nativeQuery = true)
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE appointment_events SET processed_at = :processedAt WHERE id IN (:ids)", nativeQuery = true)
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * 记录一次失败：累加重试次数，保存已成功的订阅者与下一次重试时间
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE appointment_events SET attempts = attempts + 1, last_error = :error, " +
+            "delivered_subscribers = :delivered, next_attempt_at = :nextAttemptAt WHERE id = :id", nativeQuery = true)
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("delivered") String delivered,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
@@ -1,20 +1,35 @@
 package com.example.appointment.repository;
 
 import com.example.appointment.entity.Appointment;
+import com.example.appointment.repository.projection.AppointmentListView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+
+    /**
+     * 预约列表读模型的查询列与联表，别名对应 AppointmentListView 的getter
+     */
+    String LIST_VIEW_SELECT = "SELECT a.id AS id, a.department_id AS departmentId, dep.name AS departmentName, " +
+           "a.doctor_id AS doctorId, d.name AS doctorName, a.patient_id AS patientId, u.name AS patientName, " +
+           "a.appointment_time AS appointmentTime, a.status AS status, a.description AS description, " +
+           "a.created_at AS createdAt, a.updated_at AS updatedAt " +
+           "FROM appointments a " +
+           "JOIN department dep ON dep.id = a.department_id " +
+           "JOIN doctors d ON d.id = a.doctor_id " +
+           "JOIN user u ON u.id = a.patient_id ";
     
     // 查询指定医生在某个时间段的预约
     @Query(value = "SELECT a.* FROM appointments a WHERE a.doctor_id = :doctorId " +
@@ -26,6 +41,16 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         @Param("endTime") LocalDateTime endTime
     );
 
+    // 查询指定医生在某个时间段的预约（列表读模型）
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.doctor_id = :doctorId " +
+           "AND a.appointment_time BETWEEN :startTime AND :endTime " +
+           "AND a.status NOT IN ('CANCELLED')", nativeQuery = true)
+    List<AppointmentListView> findListViewsByDoctorAndTimeRange(
+        @Param("doctorId") Long doctorId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
+
     // 查询指定患者在某个时间段的预约
     @Query(value = "SELECT a.* FROM appointments a WHERE a.patient_id = :patientId " +
            "AND a.appointment_time BETWEEN :startTime AND :endTime " +
@@ -37,53 +62,149 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     );
 
     // 查询患者的预约记录 - 使用原生SQL避免JPA解析问题
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.patient_id = :patientId ORDER BY a.appointment_time DESC", nativeQuery = true)
-    Page<Appointment> findPatientAppointmentsOrdered(@Param("patientId") Long patientId, Pageable pageable);
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.patient_id = :patientId ORDER BY a.appointment_time DESC",
+           countQuery = "SELECT COUNT(*) FROM appointments a WHERE a.patient_id = :patientId", nativeQuery = true)
+    Page<AppointmentListView> findPatientAppointmentsOrdered(@Param("patientId") Long patientId, Pageable pageable);
 
     // 查询医生的预约记录 - 使用原生SQL避免JPA解析问题
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.doctor_id = :doctorId ORDER BY a.appointment_time DESC", nativeQuery = true)
-    Page<Appointment> findDoctorAppointmentsOrdered(@Param("doctorId") Long doctorId, Pageable pageable);
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.doctor_id = :doctorId ORDER BY a.appointment_time DESC",
+           countQuery = "SELECT COUNT(*) FROM appointments a WHERE a.doctor_id = :doctorId", nativeQuery = true)
+    Page<AppointmentListView> findDoctorAppointmentsOrdered(@Param("doctorId") Long doctorId, Pageable pageable);
 
     // 查询科室的预约记录 - 使用原生SQL避免JPA解析问题
-    @Query(value = "SELECT a.* FROM appointments a " +
-           "JOIN doctors d ON a.doctor_id = d.id " +
-           "WHERE d.department_id = :departmentId " +
-           "ORDER BY a.appointment_time DESC", nativeQuery = true)
-    Page<Appointment> findDepartmentAppointmentsOrdered(@Param("departmentId") Long departmentId, Pageable pageable);
+    @Query(value = LIST_VIEW_SELECT + "WHERE d.department_id = :departmentId " +
+           "ORDER BY a.appointment_time DESC",
+           countQuery = "SELECT COUNT(*) FROM appointments a JOIN doctors d ON a.doctor_id = d.id " +
+           "WHERE d.department_id = :departmentId", nativeQuery = true)
+    Page<AppointmentListView> findDepartmentAppointmentsOrdered(@Param("departmentId") Long departmentId, Pageable pageable);
 
-    // 查询当天的预约数量
-    @Query(value = "SELECT COUNT(*) FROM appointments a WHERE DATE(a.appointment_time) = CURRENT_DATE " +
-           "AND a.status NOT IN ('CANCELLED')", nativeQuery = true)
-    Long countTodayAppointments();
+    /**
+     * 按 (appointment_time, id) 倒序的游标分页查询，时间条件均为范围谓词以便使用索引；
+     * cursorTime/cursorId 为上一页最后一条记录，首页传null。多取一条用于判断是否还有下一页
+     */
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.patient_id = :patientId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:cursorTime IS NULL OR a.appointment_time < :cursorTime " +
+           "OR (a.appointment_time = :cursorTime AND a.id < :cursorId)) " +
+           "ORDER BY a.appointment_time DESC, a.id DESC LIMIT :limit", nativeQuery = true)
+    List<AppointmentListView> findPatientAppointmentsByKeyset(
+        @Param("patientId") Long patientId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status,
+        @Param("cursorTime") LocalDateTime cursorTime,
+        @Param("cursorId") Long cursorId,
+        @Param("limit") int limit
+    );
 
-    // 根据患者ID和日期筛选预约（可选状态筛选） - 使用原生SQL避免JPA解析问题
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.patient_id = :patientId " +
-           "AND (:appointmentDate IS NULL OR DATE(a.appointment_time) = :appointmentDate) " +
+    @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.patient_id = :patientId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status)", nativeQuery = true)
+    long countPatientAppointmentsInRange(
+        @Param("patientId") Long patientId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status
+    );
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.doctor_id = :doctorId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:cursorTime IS NULL OR a.appointment_time < :cursorTime " +
+           "OR (a.appointment_time = :cursorTime AND a.id < :cursorId)) " +
+           "ORDER BY a.appointment_time DESC, a.id DESC LIMIT :limit", nativeQuery = true)
+    List<AppointmentListView> findDoctorAppointmentsByKeyset(
+        @Param("doctorId") Long doctorId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status,
+        @Param("cursorTime") LocalDateTime cursorTime,
+        @Param("cursorId") Long cursorId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.doctor_id = :doctorId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status)", nativeQuery = true)
+    long countDoctorAppointmentsInRange(
+        @Param("doctorId") Long doctorId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status
+    );
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.department_id = :departmentId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:cursorTime IS NULL OR a.appointment_time < :cursorTime " +
+           "OR (a.appointment_time = :cursorTime AND a.id < :cursorId)) " +
+           "ORDER BY a.appointment_time DESC, a.id DESC LIMIT :limit", nativeQuery = true)
+    List<AppointmentListView> findDepartmentAppointmentsByKeyset(
+        @Param("departmentId") Long departmentId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status,
+        @Param("cursorTime") LocalDateTime cursorTime,
+        @Param("cursorId") Long cursorId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.department_id = :departmentId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
+           "AND (:status IS NULL OR a.status = :status)", nativeQuery = true)
+    long countDepartmentAppointmentsInRange(
+        @Param("departmentId") Long departmentId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("status") String status
+    );
+
+    // 查询时间段内的有效预约数量（左闭右开，可使用 appointment_time 上的索引）
+    @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.appointment_time >= :startTime " +
+           "AND a.appointment_time < :endTime AND a.status NOT IN ('CANCELLED')", nativeQuery = true)
+    Long countActiveAppointmentsInRange(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    // 根据患者ID和时间段筛选预约（可选时间段、状态筛选） - 使用原生SQL避免JPA解析问题
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.patient_id = :patientId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
            "AND (:status IS NULL OR a.status = :status) " +
            "ORDER BY a.appointment_time DESC", 
            countQuery = "SELECT COUNT(*) FROM appointments a WHERE a.patient_id = :patientId " +
-           "AND (:appointmentDate IS NULL OR DATE(a.appointment_time) = :appointmentDate) " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
            "AND (:status IS NULL OR a.status = :status)",
            nativeQuery = true)
-    Page<Appointment> findAppointmentsByPatientAndDateAndStatus(
+    Page<AppointmentListView> findAppointmentsByPatientAndTimeRangeAndStatus(
         @Param("patientId") Long patientId,
-        @Param("appointmentDate") LocalDate appointmentDate,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
         @Param("status") String status,
         Pageable pageable
     );
 
-    // 根据医生ID和日期筛选预约（可选状态筛选） - 使用原生SQL避免JPA解析问题
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.doctor_id = :doctorId " +
-           "AND (:appointmentDate IS NULL OR DATE(a.appointment_time) = :appointmentDate) " +
+    // 根据医生ID和时间段筛选预约（可选时间段、状态筛选） - 使用原生SQL避免JPA解析问题
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.doctor_id = :doctorId " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
            "AND (:status IS NULL OR a.status = :status) " +
            "ORDER BY a.appointment_time DESC", 
            countQuery = "SELECT COUNT(*) FROM appointments a WHERE a.doctor_id = :doctorId " +
-           "AND (:appointmentDate IS NULL OR DATE(a.appointment_time) = :appointmentDate) " +
+           "AND (:startTime IS NULL OR a.appointment_time >= :startTime) " +
+           "AND (:endTime IS NULL OR a.appointment_time < :endTime) " +
            "AND (:status IS NULL OR a.status = :status)",
            nativeQuery = true)
-    Page<Appointment> findAppointmentsByDoctorAndDateAndStatus(
+    Page<AppointmentListView> findAppointmentsByDoctorAndTimeRangeAndStatus(
         @Param("doctorId") Long doctorId,
-        @Param("appointmentDate") LocalDate appointmentDate,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
         @Param("status") String status,
         Pageable pageable
     );
@@ -143,6 +264,13 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query(value = "SELECT COUNT(*) FROM appointments WHERE patient_id = :patientId AND doctor_id = :doctorId", nativeQuery = true)
     long countByPatientIdAndDoctorId(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
     
+    /**
+     * 统计患者在各医生处的预约次数
+     * @return [doctor_id, count] 列表
+     */
+    @Query(value = "SELECT a.doctor_id, COUNT(*) FROM appointments a WHERE a.patient_id = :patientId GROUP BY a.doctor_id", nativeQuery = true)
+    List<Object[]> countByPatientIdGroupByDoctor(@Param("patientId") Long patientId);
+    
     @Query(value = "SELECT a.* FROM appointments a " +
            "JOIN doctors d ON a.doctor_id = d.id " +
            "JOIN department dept ON d.department_id = dept.id " +
@@ -167,9 +295,49 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query(value = "SELECT a.* FROM appointments a WHERE a.appointment_time BETWEEN :startTime AND :endTime AND a.status IN :statuses AND a.reminded = false", nativeQuery = true)
     List<Appointment> findAppointmentsInTimeRangeWithStatusAndNotReminded(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses);
     
+    /**
+     * 按ID游标分页查询时间范围内待提醒的预约，同时取出患者、医生姓名
+     * @return [id, patient_id, patient_name, doctor_name, appointment_time] 列表，按ID升序
+     */
+    @Query(value = "SELECT a.id, a.patient_id, u.name, d.name, a.appointment_time FROM appointments a " +
+           "JOIN user u ON a.patient_id = u.id " +
+           "JOIN doctors d ON a.doctor_id = d.id " +
+           "WHERE a.id > :afterId AND a.appointment_time BETWEEN :startTime AND :endTime " +
+           "AND a.status IN (:statuses) AND a.reminded = false " +
+           "ORDER BY a.id ASC LIMIT :limit", nativeQuery = true)
+    List<Object[]> findReminderBatch(@Param("afterId") Long afterId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses, @Param("limit") int limit);
+    
+    /**
+     * 批量标记为已提醒
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE appointments SET reminded = true WHERE id IN (:ids)", nativeQuery = true)
+    int markReminded(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 记录冲突检测结果
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE appointments SET conflict_level = :conflictLevel, conflict_checked = true WHERE id = :id", nativeQuery = true)
+    int updateConflictResult(@Param("id") Long id, @Param("conflictLevel") String conflictLevel);
+    
     @Query(value = "SELECT a.* FROM appointments a WHERE a.patient_id = :patientId AND a.appointment_time > :currentTime AND a.status = :status", nativeQuery = true)
     List<Appointment> findPatientFutureAppointmentsByStatus(@Param("patientId") Long patientId, @Param("currentTime") LocalDateTime currentTime, @Param("status") String status);
     
+    /**
+     * 按医生、日期、时段（12点前为上午）统计科室在时间范围内的预约数
+     * @return [doctor_id, date, period, count] 列表
+     */
+    @Query(value = "SELECT a.doctor_id, DATE(a.appointment_time), " +
+           "CASE WHEN HOUR(a.appointment_time) < 12 THEN 'MORNING' ELSE 'AFTERNOON' END, COUNT(*) " +
+           "FROM appointments a JOIN doctors d ON a.doctor_id = d.id " +
+           "WHERE d.department_id = :departmentId AND a.appointment_time >= :startTime AND a.appointment_time < :endTime " +
+           "AND a.status IN (:statuses) " +
+           "GROUP BY a.doctor_id, DATE(a.appointment_time), CASE WHEN HOUR(a.appointment_time) < 12 THEN 'MORNING' ELSE 'AFTERNOON' END", nativeQuery = true)
+    List<Object[]> countDepartmentBookingsByDoctorDatePeriod(@Param("departmentId") Long departmentId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses);
+    
     @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.doctor_id = :doctorId AND a.appointment_time BETWEEN :startTime AND :endTime AND a.status IN :statuses", nativeQuery = true)
     long countDoctorAppointmentsInTimeRangeWithStatus(@Param("doctorId") Long doctorId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses);
     
@@ -180,12 +348,108 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     long countUpcomingAppointmentsByDoctor(@Param("doctorId") Long doctorId, @Param("currentTime") LocalDateTime currentTime);
     
     // 使用更简单的命名避免JPA解析问题 - 使用原生SQL
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.patient_id = :patientId AND DATE(a.appointment_time) = :appointmentDate AND a.status IN :statuses", nativeQuery = true)
-    List<Appointment> findPatientAppointmentsByDateAndStatus(@Param("patientId") Long patientId, @Param("appointmentDate") LocalDate appointmentDate, @Param("statuses") List<String> statuses);
-    
-    @Query(value = "SELECT a.* FROM appointments a WHERE a.doctor_id = :doctorId AND DATE(a.appointment_time) = :appointmentDate AND a.status IN :statuses", nativeQuery = true)
-    List<Appointment> findDoctorAppointmentsByDateAndStatus(@Param("doctorId") Long doctorId, @Param("appointmentDate") LocalDate appointmentDate, @Param("statuses") List<String> statuses);
-    
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.patient_id = :patientId AND a.appointment_time >= :startTime AND a.appointment_time < :endTime AND a.status IN :statuses", nativeQuery = true)
+    List<AppointmentListView> findPatientAppointmentsByTimeRangeAndStatus(@Param("patientId") Long patientId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses);
+    
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.doctor_id = :doctorId AND a.appointment_time >= :startTime AND a.appointment_time < :endTime AND a.status IN :statuses", nativeQuery = true)
+    List<AppointmentListView> findDoctorAppointmentsByTimeRangeAndStatus(@Param("doctorId") Long doctorId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("statuses") List<String> statuses);
+    
+    /**
+     * 查询医生们在时间段内（左闭右开）的有效预约（仅ID、医生、患者、时间），用于停诊时定位受影响的预约
+     * @return 每行依次为 id, doctor_id, patient_id, appointment_time
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time FROM appointments a " +
+           "WHERE a.doctor_id IN :doctorIds AND a.appointment_time >= :startTime AND a.appointment_time < :endTime " +
+           "AND a.status IN :statuses", nativeQuery = true)
+    List<Object[]> findActiveAppointmentTimesForDoctors(
+        @Param("doctorIds") Collection<Long> doctorIds,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("statuses") List<String> statuses
+    );
+
+    /**
+     * 查询发送通知所需的预约信息
+     * @return 至多一行，依次为 id, patient_id, patient_name, doctor_name, appointment_time, status
+     */
+    @Query(value = "SELECT a.id, a.patient_id, u.name, d.name, a.appointment_time, a.status FROM appointments a " +
+           "JOIN user u ON a.patient_id = u.id " +
+           "JOIN doctors d ON a.doctor_id = d.id " +
+           "WHERE a.id = :id", nativeQuery = true)
+    List<Object[]> findNotificationRow(@Param("id") Long id);
+
+    /**
+     * 锁定仍处于指定状态的预约，在同一事务中随后取消的正是这些预约
+     * @return 被锁定的预约ID
+     */
+    @Query(value = "SELECT a.id FROM appointments a WHERE a.id IN (:ids) AND a.status IN (:statuses) FOR UPDATE", nativeQuery = true)
+    List<Number> lockAppointmentIdsInStatus(
+        @Param("ids") Collection<Long> ids,
+        @Param("statuses") List<String> statuses
+    );
+
+    /**
+     * 批量取消仍处于指定状态的预约
+     * @return 实际取消的预约数
+     */
+    @Modifying
+    @Query(value = "UPDATE appointments SET status = 'CANCELLED', updated_at = :updatedAt " +
+           "WHERE id IN (:ids) AND status IN (:statuses)", nativeQuery = true)
+    int cancelAppointmentsByIds(
+        @Param("ids") Collection<Long> ids,
+        @Param("statuses") List<String> statuses,
+        @Param("updatedAt") LocalDateTime updatedAt
+    );
+
+    /**
+     * 查询指定时间之后的有效预约（仅ID、医生、患者、时间），用于预热内存索引
+     * @return 每行依次为 id, doctor_id, patient_id, appointment_time
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time FROM appointments a " +
+           "WHERE a.appointment_time >= :fromTime AND a.status IN :statuses", nativeQuery = true)
+    List<Object[]> findActiveAppointmentTimes(@Param("fromTime") LocalDateTime fromTime, @Param("statuses") List<String> statuses);
+
+    /**
+     * 医生在时间开区间 (fromTime, toTime) 内的有效预约，冲突判定以此为准
+     * @return 每行依次为 id, doctor_id, patient_id, appointment_time
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time FROM appointments a " +
+           "WHERE a.doctor_id = :doctorId AND a.appointment_time > :fromTime AND a.appointment_time < :toTime " +
+           "AND a.status IN :statuses", nativeQuery = true)
+    List<Object[]> findDoctorActiveAppointmentTimesWithin(
+        @Param("doctorId") Long doctorId,
+        @Param("fromTime") LocalDateTime fromTime,
+        @Param("toTime") LocalDateTime toTime,
+        @Param("statuses") List<String> statuses
+    );
+
+    /**
+     * 患者在时间开区间 (fromTime, toTime) 内的有效预约，冲突判定以此为准
+     * @return 每行依次为 id, doctor_id, patient_id, appointment_time
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time FROM appointments a " +
+           "WHERE a.patient_id = :patientId AND a.appointment_time > :fromTime AND a.appointment_time < :toTime " +
+           "AND a.status IN :statuses", nativeQuery = true)
+    List<Object[]> findPatientActiveAppointmentTimesWithin(
+        @Param("patientId") Long patientId,
+        @Param("fromTime") LocalDateTime fromTime,
+        @Param("toTime") LocalDateTime toTime,
+        @Param("statuses") List<String> statuses
+    );
+
+    /**
+     * 查询时间段内（左闭右开）的全部有效预约（仅ID、医生、患者、时间），用于全院冲突审计
+     * @return 每行依次为 id, doctor_id, patient_id, appointment_time
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time FROM appointments a " +
+           "WHERE a.appointment_time >= :startTime AND a.appointment_time < :endTime " +
+           "AND a.status IN :statuses", nativeQuery = true)
+    List<Object[]> findActiveAppointmentTimesBetween(
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("statuses") List<String> statuses
+    );
+
     @Query(value = "SELECT COUNT(*) FROM appointments a WHERE a.id = :id", nativeQuery = true)
     long countByIdCustom(@Param("id") Long id);
     
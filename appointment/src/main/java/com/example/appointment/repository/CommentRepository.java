@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -39,6 +40,13 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query(value = "SELECT COUNT(*) FROM post_comments WHERE post_id = :postId", nativeQuery = true)
     int countByPostId(@Param("postId") Long postId);
     
+    /**
+     * 批量统计帖子评论数
+     * @return [post_id, count] 列表，没有评论的帖子不出现在结果中
+     */
+    @Query(value = "SELECT c.post_id, COUNT(*) FROM post_comments c WHERE c.post_id IN (:postIds) GROUP BY c.post_id", nativeQuery = true)
+    List<Object[]> countGroupByPostIds(@Param("postIds") Collection<Long> postIds);
+    
     @Query(value = "SELECT COUNT(*) FROM post_comments c WHERE c.id = :id", nativeQuery = true)
     long countByIdCustom(@Param("id") Long id);
     
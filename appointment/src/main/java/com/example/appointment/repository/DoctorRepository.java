@@ -70,6 +70,9 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     @Query(value = "SELECT COUNT(*) FROM doctor d WHERE d.status = 1", nativeQuery = true)
     long countActiveDoctors();
     
+    @Query(value = "SELECT d.department_id FROM doctors d WHERE d.id = :doctorId", nativeQuery = true)
+    Long findDepartmentIdById(@Param("doctorId") Long doctorId);
+
     @Query(value = "SELECT d.* FROM doctors d WHERE d.id IN :doctorIds", nativeQuery = true)
     List<Doctor> findByIdIn(@Param("doctorIds") List<Long> doctorIds);
     
@@ -55,6 +55,15 @@ public interface DoctorReviewRepository extends JpaRepository<DoctorReview, Long
            "GROUP BY dr.rating", nativeQuery = true)
     List<Object[]> getRatingDistributionByDoctorId(@Param("doctorId") Long doctorId);
     
+    /**
+     * 按医生、评分汇总全部已审核评价
+     * @return [doctor_id, rating, count] 列表
+     */
+    @Query(value = "SELECT dr.doctor_id, dr.rating, COUNT(dr.id) FROM doctor_reviews dr " +
+           "WHERE dr.status = 'APPROVED' " +
+           "GROUP BY dr.doctor_id, dr.rating", nativeQuery = true)
+    List<Object[]> getApprovedRatingDistribution();
+    
     /**
      * 查询指定时间范围内的评价
      */
@@ -1,6 +1,7 @@
 package com.example.appointment.repository;
 
 import com.example.appointment.entity.DoctorSchedule;
+import com.example.appointment.repository.projection.DoctorScheduleView;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,10 +10,23 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DoctorScheduleRepository extends JpaRepository<DoctorSchedule, Long> {
+
+    /**
+     * 排班列表读模型的查询列与联表，别名对应 DoctorScheduleView 的getter
+     */
+    String SCHEDULE_VIEW_SELECT = "SELECT ds.id AS id, ds.doctor_id AS doctorId, d.name AS doctorName, " +
+           "ds.department_id AS departmentId, dep.name AS departmentName, ds.schedule_date AS scheduleDate, " +
+           "ds.period AS period, ds.max_appointments AS maxAppointments, " +
+           "ds.available_appointments AS availableAppointments, ds.status AS status " +
+           "FROM doctor_schedule ds " +
+           "JOIN doctors d ON d.id = ds.doctor_id " +
+           "LEFT JOIN department dep ON dep.id = ds.department_id ";
+
     @Query(value = "SELECT COUNT(*) FROM doctor_schedule ds WHERE ds.doctor_id = :doctorId AND ds.schedule_date = :scheduleDate", nativeQuery = true)
     long countByDoctorIdAndScheduleDate(@Param("doctorId") Long doctorId, @Param("scheduleDate") LocalDate scheduleDate);
     
@@ -23,55 +37,124 @@ public interface DoctorScheduleRepository extends JpaRepository<DoctorSchedule,
     @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.doctor_id = :doctorId AND ds.schedule_date = :scheduleDate", nativeQuery = true)
     List<DoctorSchedule> findByDoctorIdAndScheduleDate(@Param("doctorId") Long doctorId, @Param("scheduleDate") LocalDate scheduleDate);
     
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds " +
-           "JOIN doctor d ON ds.doctor_id = d.id " +
-           "WHERE d.department_id = :departmentId AND ds.schedule_date = :scheduleDate", nativeQuery = true)
-    List<DoctorSchedule> findByDepartmentIdAndScheduleDate(@Param("departmentId") Long departmentId, @Param("scheduleDate") LocalDate scheduleDate);
-    
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.doctor_id = :doctorId AND ds.schedule_date >= :scheduleDate", nativeQuery = true)
-    List<DoctorSchedule> findDoctorSchedulesFromDate(@Param("doctorId") Long doctorId, @Param("scheduleDate") LocalDate scheduleDate);
-    
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.department_id = :departmentId AND ds.schedule_date >= :scheduleDate ORDER BY ds.schedule_date", nativeQuery = true)
-    List<DoctorSchedule> findDepartmentSchedulesFromDate(@Param("departmentId") Long departmentId, @Param("scheduleDate") LocalDate scheduleDate);
-    
     @Modifying
     @Query(value = "UPDATE doctor_schedule SET available_appointments = available_appointments + :change WHERE id = :scheduleId", nativeQuery = true)
     void updateAvailableAppointments(@Param("scheduleId") Long scheduleId, @Param("change") int change);
-    
+
+    /**
+     * 扣减一个可用预约数，仅在仍有剩余时生效
+     * @return 受影响行数，0表示号源已满
+     */
+    @Modifying
+    @Query(value = "UPDATE doctor_schedule SET available_appointments = available_appointments - 1 WHERE id = :scheduleId AND available_appointments > 0", nativeQuery = true)
+    int reserveAvailableAppointment(@Param("scheduleId") Long scheduleId);
+
+    /**
+     * 查询医生们在日期范围内已有排班的医生、日期、时段，用于批量生成排班前去重
+     * @return 每行依次为 doctor_id, schedule_date, period
+     */
+    @Query(value = "SELECT ds.doctor_id, ds.schedule_date, ds.period FROM doctor_schedule ds " +
+           "WHERE ds.doctor_id IN :doctorIds AND ds.schedule_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Object[]> findScheduleKeysBetweenDates(
+        @Param("doctorIds") Collection<Long> doctorIds, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 查询科室在日期范围内的正常排班容量
+     * @return [doctor_id, schedule_date, period, max_appointments] 列表
+     */
+    @Query(value = "SELECT ds.doctor_id, ds.schedule_date, ds.period, ds.max_appointments FROM doctor_schedule ds " +
+           "WHERE ds.department_id = :departmentId AND ds.schedule_date BETWEEN :startDate AND :endDate AND ds.status = 1", nativeQuery = true)
+    List<Object[]> findDepartmentScheduleCapacity(
+        @Param("departmentId") Long departmentId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按医生、日期、时段汇总科室在日期范围内（左闭右开）的正常排班容量与余号，用于月度号源日历
+     * @return 每行依次为 doctor_id, 医生姓名, schedule_date, period, 最大预约数, 剩余预约数
+     */
+    @Query(value = "SELECT ds.doctor_id, MAX(d.name), ds.schedule_date, ds.period, " +
+           "SUM(CASE WHEN ds.status = 1 THEN ds.max_appointments ELSE 0 END), " +
+           "SUM(CASE WHEN ds.status = 1 THEN ds.available_appointments ELSE 0 END) " +
+           "FROM doctor_schedule ds JOIN doctors d ON d.id = ds.doctor_id " +
+           "WHERE ds.department_id = :departmentId AND ds.schedule_date >= :startDate AND ds.schedule_date < :endDate " +
+           "GROUP BY ds.doctor_id, ds.schedule_date, ds.period ORDER BY ds.doctor_id", nativeQuery = true)
+    List<Object[]> summarizeDepartmentAvailability(
+        @Param("departmentId") Long departmentId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 查询待停诊的正常排班，科室、医生、时段条件为空时不限
+     * @return 每行依次为 id, doctor_id, department_id, schedule_date, period
+     */
+    @Query(value = "SELECT ds.id, ds.doctor_id, ds.department_id, ds.schedule_date, ds.period FROM doctor_schedule ds " +
+           "WHERE (:departmentId IS NULL OR ds.department_id = :departmentId) " +
+           "AND (:doctorId IS NULL OR ds.doctor_id = :doctorId) " +
+           "AND ds.schedule_date BETWEEN :startDate AND :endDate " +
+           "AND (:period IS NULL OR ds.period = :period) " +
+           "AND ds.status = 1 ORDER BY ds.schedule_date, ds.id", nativeQuery = true)
+    List<Object[]> findActiveSessionsForSuspension(
+        @Param("departmentId") Long departmentId,
+        @Param("doctorId") Long doctorId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate,
+        @Param("period") String period);
+
+    /**
+     * 批量停诊：状态置为停诊并清零剩余号源
+     * @return 实际停诊的排班数
+     */
+    @Modifying
+    @Query(value = "UPDATE doctor_schedule SET status = 0, available_appointments = 0, updated_at = NOW() " +
+           "WHERE id IN (:ids) AND status = 1", nativeQuery = true)
+    int suspendSchedules(@Param("ids") Collection<Long> ids);
+
     /**
      * 获取今天及以后的排班，按日期升序排列
      */
     @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.schedule_date >= :scheduleDate ORDER BY ds.schedule_date ASC", nativeQuery = true)
     List<DoctorSchedule> findSchedulesFromDateOrdered(@Param("scheduleDate") LocalDate scheduleDate);
     
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.id = :id", nativeQuery = true)
+    DoctorScheduleView findViewById(@Param("id") Long id);
+
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.doctor_id = :doctorId AND ds.schedule_date = :scheduleDate " +
+           "ORDER BY ds.period", nativeQuery = true)
+    List<DoctorScheduleView> findViewsByDoctorAndDate(@Param("doctorId") Long doctorId, @Param("scheduleDate") LocalDate scheduleDate);
+
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.department_id = :departmentId AND ds.schedule_date = :scheduleDate " +
+           "ORDER BY ds.doctor_id, ds.period", nativeQuery = true)
+    List<DoctorScheduleView> findViewsByDepartmentAndDate(@Param("departmentId") Long departmentId, @Param("scheduleDate") LocalDate scheduleDate);
+
     /**
-     * 获取指定日期之前的排班，按日期降序排列
+     * 医生指定日期及以后的排班，按日期、时段升序，数量由 Pageable 限制
      */
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.schedule_date < :scheduleDate ORDER BY ds.schedule_date DESC", nativeQuery = true)
-    List<DoctorSchedule> findSchedulesBeforeDateOrdered(@Param("scheduleDate") LocalDate scheduleDate);
-    
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.doctor_id = :doctorId AND ds.schedule_date >= :fromDate " +
+           "ORDER BY ds.schedule_date, ds.period", nativeQuery = true)
+    List<DoctorScheduleView> findDoctorViewsFromDate(@Param("doctorId") Long doctorId, @Param("fromDate") LocalDate fromDate, Pageable pageable);
+
     /**
-     * 获取指定日期之前的排班，按日期降序排列，限制返回数量
-     * 使用Pageable参数代替limit参数
+     * 科室指定日期及以后的排班，按日期、医生、时段升序，数量由 Pageable 限制
      */
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.schedule_date < :scheduleDate ORDER BY ds.schedule_date DESC", nativeQuery = true)
-    List<DoctorSchedule> findSchedulesBeforeDateOrdered(@Param("scheduleDate") LocalDate scheduleDate, Pageable pageable);
-    
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.department_id = :departmentId AND ds.schedule_date >= :fromDate " +
+           "ORDER BY ds.schedule_date, ds.doctor_id, ds.period", nativeQuery = true)
+    List<DoctorScheduleView> findDepartmentViewsFromDate(@Param("departmentId") Long departmentId, @Param("fromDate") LocalDate fromDate, Pageable pageable);
+
     /**
-     * 使用原生SQL查询
+     * 全院指定日期及以后的排班，按日期升序，数量由 Pageable 限制
      */
-    @Query(value = "SELECT * FROM doctor_schedule WHERE doctor_id = :doctorId AND schedule_date = :scheduleDate", nativeQuery = true)
-    List<DoctorSchedule> findSchedulesByNativeQuery(@Param("doctorId") Long doctorId, @Param("scheduleDate") String scheduleDate);
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.schedule_date >= :fromDate ORDER BY ds.schedule_date, ds.id", nativeQuery = true)
+    List<DoctorScheduleView> findViewsFromDate(@Param("fromDate") LocalDate fromDate, Pageable pageable);
 
     /**
-     * 根据医生ID和日期范围查询排班记录，按日期和时段升序排序
-     * @param doctorId 医生ID
-     * @param startDate 开始日期
-     * @param endDate 结束日期
-     * @return 排班记录列表
+     * 全院指定日期之前的排班，按日期降序，数量由 Pageable 限制
+     */
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.schedule_date < :beforeDate ORDER BY ds.schedule_date DESC, ds.id DESC", nativeQuery = true)
+    List<DoctorScheduleView> findViewsBeforeDate(@Param("beforeDate") LocalDate beforeDate, Pageable pageable);
+
+    /**
+     * 医生日期范围内（含首尾）的排班，按日期和时段升序
      */
-    @Query(value = "SELECT ds.* FROM doctor_schedule ds WHERE ds.doctor_id = :doctorId AND ds.schedule_date BETWEEN :startDate AND :endDate ORDER BY ds.schedule_date ASC, ds.period ASC", nativeQuery = true)
-    List<DoctorSchedule> findDoctorSchedulesBetweenDatesOrdered(
+    @Query(value = SCHEDULE_VIEW_SELECT + "WHERE ds.doctor_id = :doctorId AND ds.schedule_date BETWEEN :startDate AND :endDate " +
+           "ORDER BY ds.schedule_date ASC, ds.period ASC", nativeQuery = true)
+    List<DoctorScheduleView> findDoctorViewsBetweenDates(
         @Param("doctorId") Long doctorId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
         
     /**
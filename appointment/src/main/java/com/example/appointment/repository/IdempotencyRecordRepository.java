@@ -0,0 +1,51 @@
+package com.example.appointment.repository;
+
+import com.example.appointment.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * 占用幂等键，已被占用时不做修改
+     * @return 1表示占用成功，0表示已存在记录
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO idempotency_records (key_hash, request_hash, status, expires_at, created_at) " +
+            "VALUES (:keyHash, :requestHash, 'PROCESSING', :expiresAt, NOW())", nativeQuery = true)
+    int tryClaim(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 写入成功响应，在业务事务中调用时与业务数据一同提交
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_records SET status = 'COMPLETED', response_body = :responseBody, expires_at = :expiresAt " +
+            "WHERE key_hash = :keyHash", nativeQuery = true)
+    int complete(@Param("keyHash") String keyHash, @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_records WHERE key_hash = :keyHash", nativeQuery = true)
+    int release(@Param("keyHash") String keyHash);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_records WHERE key_hash = :keyHash AND expires_at < :now", nativeQuery = true)
+    int releaseIfExpired(@Param("keyHash") String keyHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_records WHERE expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -10,6 +10,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -39,6 +41,19 @@ public interface PostFavoriteRepository extends JpaRepository<PostFavorite, Long
     @Query(value = "SELECT COUNT(*) FROM post_favorites WHERE post_id = :postId", nativeQuery = true)
     long countByPostId(@Param("postId") Long postId);
     
+    /**
+     * 批量查询用户在给定帖子中收藏过的帖子ID
+     */
+    @Query(value = "SELECT pf.post_id FROM post_favorites pf WHERE pf.user_id = :userId AND pf.post_id IN (:postIds)", nativeQuery = true)
+    List<Number> findFavoritedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+    
+    /**
+     * 批量统计帖子收藏数
+     * @return [post_id, count] 列表，没有收藏的帖子不出现在结果中
+     */
+    @Query(value = "SELECT pf.post_id, COUNT(*) FROM post_favorites pf WHERE pf.post_id IN (:postIds) GROUP BY pf.post_id", nativeQuery = true)
+    List<Object[]> countGroupByPostIds(@Param("postIds") Collection<Long> postIds);
+    
     @Query(value = "SELECT COUNT(*) FROM post_favorites pf WHERE pf.id = :id", nativeQuery = true)
     long countByIdCustom(@Param("id") Long id);
     
@@ -7,6 +7,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     
@@ -19,6 +22,12 @@ public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     
     void deleteByPostIdAndUserId(Long postId, Long userId);
     
+    /**
+     * 批量查询用户在给定帖子中点赞过的帖子ID
+     */
+    @Query(value = "SELECT pl.post_id FROM post_likes pl WHERE pl.user_id = :userId AND pl.post_id IN (:postIds)", nativeQuery = true)
+    List<Number> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+    
     @Modifying
     @Query(value = "DELETE FROM post_likes WHERE post_id = :postId", nativeQuery = true)
     void deleteByPostId(@Param("postId") Long postId);
@@ -0,0 +1,24 @@
+package com.example.appointment.repository;
+
+import com.example.appointment.entity.ScheduleTemplateExclusion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduleTemplateExclusionRepository extends JpaRepository<ScheduleTemplateExclusion, Long> {
+
+    @Query(value = "SELECT e.* FROM schedule_template_exclusions e WHERE e.doctor_id = :doctorId " +
+           "AND e.exclusion_date >= :fromDate ORDER BY e.exclusion_date", nativeQuery = true)
+    List<ScheduleTemplateExclusion> findByDoctorIdFromDate(@Param("doctorId") Long doctorId, @Param("fromDate") LocalDate fromDate);
+
+    @Query(value = "SELECT e.* FROM schedule_template_exclusions e WHERE e.doctor_id IN :doctorIds " +
+           "AND e.exclusion_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<ScheduleTemplateExclusion> findByDoctorIdsBetweenDates(
+        @Param("doctorIds") Collection<Long> doctorIds, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
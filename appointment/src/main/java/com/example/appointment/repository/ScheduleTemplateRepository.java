@@ -0,0 +1,23 @@
+package com.example.appointment.repository;
+
+import com.example.appointment.entity.ScheduleTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScheduleTemplateRepository extends JpaRepository<ScheduleTemplate, Long> {
+
+    @Query(value = "SELECT t.* FROM schedule_templates t WHERE t.doctor_id = :doctorId ORDER BY t.day_of_week, t.period", nativeQuery = true)
+    List<ScheduleTemplate> findByDoctorIdOrdered(@Param("doctorId") Long doctorId);
+
+    @Query(value = "SELECT t.* FROM schedule_templates t WHERE t.department_id = :departmentId ORDER BY t.doctor_id, t.day_of_week, t.period", nativeQuery = true)
+    List<ScheduleTemplate> findByDepartmentIdOrdered(@Param("departmentId") Long departmentId);
+
+    @Query(value = "SELECT t.* FROM schedule_templates t WHERE t.doctor_id = :doctorId AND t.day_of_week = :dayOfWeek AND t.period = :period", nativeQuery = true)
+    ScheduleTemplate findByDoctorDayAndPeriod(
+        @Param("doctorId") Long doctorId, @Param("dayOfWeek") Integer dayOfWeek, @Param("period") String period);
+}
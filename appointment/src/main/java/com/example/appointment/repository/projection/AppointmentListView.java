@@ -0,0 +1,33 @@
+package com.example.appointment.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * 预约列表读模型：预约字段与科室、医生、患者名称在一条SQL中联表取出
+ * 列别名需与getter名称一致，见 AppointmentRepository.LIST_VIEW_SELECT
+ */
+public interface AppointmentListView {
+    Long getId();
+
+    Long getDepartmentId();
+
+    String getDepartmentName();
+
+    Long getDoctorId();
+
+    String getDoctorName();
+
+    Long getPatientId();
+
+    String getPatientName();
+
+    LocalDateTime getAppointmentTime();
+
+    String getStatus();
+
+    String getDescription();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
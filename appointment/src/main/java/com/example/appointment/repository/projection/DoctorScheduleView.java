@@ -0,0 +1,29 @@
+package com.example.appointment.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * 排班列表读模型：排班字段与医生、科室名称在一条SQL中联表取出
+ * 列别名需与getter名称一致，见 DoctorScheduleRepository.SCHEDULE_VIEW_SELECT
+ */
+public interface DoctorScheduleView {
+    Long getId();
+
+    Long getDoctorId();
+
+    String getDoctorName();
+
+    Long getDepartmentId();
+
+    String getDepartmentName();
+
+    LocalDate getScheduleDate();
+
+    String getPeriod();
+
+    Integer getMaxAppointments();
+
+    Integer getAvailableAppointments();
+
+    Integer getStatus();
+}
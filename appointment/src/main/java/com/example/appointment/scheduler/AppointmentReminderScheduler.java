@@ -28,7 +28,7 @@ public class AppointmentReminderScheduler {
         try {
             Map<String, Object> result = smartReminderService.sendUpcomingAppointmentReminders();
             log.info("Scheduled reminder check completed. Sent reminders: {}, Failed: {}", 
-                    result.get("successfulCount"), result.get("failedCount"));
+                    result.get("successCount"), result.get("errorCount"));
         } catch (Exception e) {
             log.error("Error during scheduled upcoming appointment reminders", e);
         }
@@ -44,7 +44,7 @@ public class AppointmentReminderScheduler {
         try {
             Map<String, Object> result = smartReminderService.sendDailyAppointmentReminders();
             log.info("Daily reminder check completed. Sent reminders: {}, Failed: {}", 
-                    result.get("successfulCount"), result.get("failedCount"));
+                    result.get("successCount"), result.get("errorCount"));
         } catch (Exception e) {
             log.error("Error during daily appointment reminders", e);
         }
@@ -1,5 +1,6 @@
 package com.example.appointment.service;
 
+import com.example.appointment.config.ConflictDetectionConfig;
 import com.example.appointment.dto.AppointmentConflictDTO;
 import com.example.appointment.dto.TimeConflictAnalysisDTO;
 import com.example.appointment.entity.Appointment;
@@ -11,7 +12,6 @@ import com.example.appointment.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
@@ -34,6 +34,12 @@ public class AppointmentConflictService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private AppointmentTimeIndex appointmentTimeIndex;
+    
+    @Autowired
+    private ConflictDetectionConfig conflictDetectionConfig;
+    
     /**
      * 检测预约时间冲突
      * @param patientId 患者ID
@@ -42,14 +48,25 @@ public class AppointmentConflictService {
      * @return 冲突分析结果
      */
     public TimeConflictAnalysisDTO analyzeTimeConflicts(Long patientId, Long doctorId, LocalDateTime appointmentTime) {
+        return analyze(patientId, doctorId, appointmentTime, null,
+                checkPatientConflicts(patientId, appointmentTime, null), new HashMap<>());
+    }
+
+    /**
+     * 冲突分析
+     * @param appointmentId 分析已有预约时传入，冲突结果中排除该预约本身
+     * @param patientConflicts 已算好的患者冲突
+     * @param peerCache 医生ID -> 同科室其他医生，批量分析时共用
+     */
+    private TimeConflictAnalysisDTO analyze(Long patientId, Long doctorId, LocalDateTime appointmentTime, Long appointmentId,
+                                            List<AppointmentConflictDTO> patientConflicts, Map<Long, List<Doctor>> peerCache) {
         TimeConflictAnalysisDTO analysis = new TimeConflictAnalysisDTO();
         
-        // 1. 检查患者时间冲突
-        List<AppointmentConflictDTO> patientConflicts = checkPatientConflicts(patientId, appointmentTime);
+        // 1. 患者时间冲突
         analysis.setPatientConflicts(patientConflicts);
         
         // 2. 检查医生时间冲突
-        List<AppointmentConflictDTO> doctorConflicts = checkDoctorConflicts(doctorId, appointmentTime);
+        List<AppointmentConflictDTO> doctorConflicts = checkDoctorConflicts(doctorId, appointmentTime, appointmentId);
         analysis.setDoctorConflicts(doctorConflicts);
         
         // 3. 检查时间段可用性
@@ -57,7 +74,7 @@ public class AppointmentConflictService {
         analysis.setTimeSlotAvailable(isTimeSlotAvailable);
         
         // 4. 提供智能建议
-        List<String> suggestions = generateSmartSuggestions(patientId, doctorId, appointmentTime, analysis);
+        List<String> suggestions = generateSmartSuggestions(patientId, doctorId, appointmentTime, analysis, peerCache);
         analysis.setSuggestions(suggestions);
         
         // 5. 计算冲突风险等级
@@ -70,58 +87,59 @@ public class AppointmentConflictService {
     /**
      * 检查患者时间冲突
      */
-    private List<AppointmentConflictDTO> checkPatientConflicts(Long patientId, LocalDateTime appointmentTime) {
+    private List<AppointmentConflictDTO> checkPatientConflicts(Long patientId, LocalDateTime appointmentTime, Long excludeAppointmentId) {
         List<AppointmentConflictDTO> conflicts = new ArrayList<>();
         
-        // 获取患者当天的所有预约
-        LocalDate appointmentDate = appointmentTime.toLocalDate();
-        List<Appointment> patientAppointments = appointmentRepository
-                .findPatientAppointmentsByDateAndStatus(
-                        patientId, appointmentDate, Arrays.asList("PENDING", "CONFIRMED"));
-        
-        for (Appointment appointment : patientAppointments) {
-            // 检查时间间隔（至少间隔30分钟）
-            long minutesDiff = Math.abs(ChronoUnit.MINUTES.between(appointmentTime, appointment.getAppointmentTime()));
-            if (minutesDiff < 30) {
-                AppointmentConflictDTO conflict = new AppointmentConflictDTO();
-                conflict.setConflictType("PATIENT_TIME_CONFLICT");
-                conflict.setConflictDescription("与您的其他预约时间冲突");
-                conflict.setConflictingAppointmentId(appointment.getId());
-                conflict.setConflictingTime(appointment.getAppointmentTime());
-                conflict.setTimeDifference(minutesDiff);
-                conflict.setSeverity("HIGH");
-                conflicts.add(conflict);
+        // 冲突判定以数据库为准：时间索引不包含其他节点尚未同步过来的预约
+        List<AppointmentTimeIndex.Booking> nearby = appointmentTimeIndex.loadPatientBookingsWithin(
+                patientId, appointmentTime, conflictDetectionConfig.getMinConflictIntervalMinutes());
+        
+        for (AppointmentTimeIndex.Booking booking : nearby) {
+            if (booking.getAppointmentId().equals(excludeAppointmentId)) {
+                continue;
             }
+            long minutesDiff = Math.abs(ChronoUnit.MINUTES.between(appointmentTime, booking.getAppointmentTime()));
+            conflicts.add(patientConflict(booking.getAppointmentId(), booking.getAppointmentTime(), minutesDiff));
         }
         
         return conflicts;
     }
+
+    private static AppointmentConflictDTO patientConflict(Long conflictingAppointmentId, LocalDateTime conflictingTime,
+                                                          long minutesDiff) {
+        AppointmentConflictDTO conflict = new AppointmentConflictDTO();
+        conflict.setConflictType("PATIENT_TIME_CONFLICT");
+        conflict.setConflictDescription("与您的其他预约时间冲突");
+        conflict.setConflictingAppointmentId(conflictingAppointmentId);
+        conflict.setConflictingTime(conflictingTime);
+        conflict.setTimeDifference(minutesDiff);
+        conflict.setSeverity("HIGH");
+        return conflict;
+    }
     
     /**
      * 检查医生时间冲突
      */
-    private List<AppointmentConflictDTO> checkDoctorConflicts(Long doctorId, LocalDateTime appointmentTime) {
+    private List<AppointmentConflictDTO> checkDoctorConflicts(Long doctorId, LocalDateTime appointmentTime, Long excludeAppointmentId) {
         List<AppointmentConflictDTO> conflicts = new ArrayList<>();
         
-        // 获取医生当天的所有预约
-        LocalDate appointmentDate = appointmentTime.toLocalDate();
-        List<Appointment> doctorAppointments = appointmentRepository
-                .findDoctorAppointmentsByDateAndStatus(
-                        doctorId, appointmentDate, Arrays.asList("PENDING", "CONFIRMED"));
-        
-        for (Appointment appointment : doctorAppointments) {
-            // 检查时间间隔（每个预约至少需要15分钟间隔）
-            long minutesDiff = Math.abs(ChronoUnit.MINUTES.between(appointmentTime, appointment.getAppointmentTime()));
-            if (minutesDiff < 15) {
-                AppointmentConflictDTO conflict = new AppointmentConflictDTO();
-                conflict.setConflictType("DOCTOR_TIME_CONFLICT");
-                conflict.setConflictDescription("医生在该时间段已有其他预约");
-                conflict.setConflictingAppointmentId(appointment.getId());
-                conflict.setConflictingTime(appointment.getAppointmentTime());
-                conflict.setTimeDifference(minutesDiff);
-                conflict.setSeverity("HIGH");
-                conflicts.add(conflict);
+        // 冲突判定以数据库为准：时间索引不包含其他节点尚未同步过来的预约
+        List<AppointmentTimeIndex.Booking> nearby = appointmentTimeIndex.loadDoctorBookingsWithin(
+                doctorId, appointmentTime, conflictDetectionConfig.getMinConflictIntervalMinutes());
+        
+        for (AppointmentTimeIndex.Booking booking : nearby) {
+            if (booking.getAppointmentId().equals(excludeAppointmentId)) {
+                continue;
             }
+            long minutesDiff = Math.abs(ChronoUnit.MINUTES.between(appointmentTime, booking.getAppointmentTime()));
+            AppointmentConflictDTO conflict = new AppointmentConflictDTO();
+            conflict.setConflictType("DOCTOR_TIME_CONFLICT");
+            conflict.setConflictDescription("医生在该时间段已有其他预约");
+            conflict.setConflictingAppointmentId(booking.getAppointmentId());
+            conflict.setConflictingTime(booking.getAppointmentTime());
+            conflict.setTimeDifference(minutesDiff);
+            conflict.setSeverity("HIGH");
+            conflicts.add(conflict);
         }
         
         return conflicts;
@@ -149,7 +167,7 @@ public class AppointmentConflictService {
      * 生成智能建议
      */
     private List<String> generateSmartSuggestions(Long patientId, Long doctorId, LocalDateTime appointmentTime, 
-                                                  TimeConflictAnalysisDTO analysis) {
+                                                  TimeConflictAnalysisDTO analysis, Map<Long, List<Doctor>> peerCache) {
         List<String> suggestions = new ArrayList<>();
         
         // 1. 基于冲突类型提供建议
@@ -172,7 +190,7 @@ public class AppointmentConflictService {
         }
         
         // 3. 提供替代医生建议
-        List<Doctor> alternativeDoctors = findAlternativeDoctors(doctorId, appointmentTime);
+        List<Doctor> alternativeDoctors = findAlternativeDoctors(doctorId, appointmentTime, peerCache);
         if (!alternativeDoctors.isEmpty()) {
             suggestions.add("同科室其他可用医生：" + formatDoctorNames(alternativeDoctors));
         }
@@ -192,9 +210,10 @@ public class AppointmentConflictService {
             
             LocalDateTime candidateTime = targetTime.plusMinutes(offset);
             
-            // 检查该时间是否可用
-            boolean isPatientAvailable = checkPatientConflicts(patientId, candidateTime).isEmpty();
-            boolean isDoctorAvailable = checkDoctorConflicts(doctorId, candidateTime).isEmpty();
+            // 检查该时间是否可用（推荐仅作参考，按时间索引试算，不逐个候选时间查询数据库）
+            boolean isPatientAvailable = appointmentTimeIndex.findPatientBookingsWithin(
+                    patientId, candidateTime, conflictDetectionConfig.getMinConflictIntervalMinutes()).isEmpty();
+            boolean isDoctorAvailable = isDoctorFree(doctorId, candidateTime);
             boolean isTimeSlotAvailable = checkTimeSlotAvailability(doctorId, candidateTime);
             
             if (isPatientAvailable && isDoctorAvailable && isTimeSlotAvailable) {
@@ -211,21 +230,14 @@ public class AppointmentConflictService {
     /**
      * 查找替代医生
      */
-    private List<Doctor> findAlternativeDoctors(Long currentDoctorId, LocalDateTime appointmentTime) {
-        // 获取当前医生的科室
-        Doctor currentDoctor = doctorRepository.findById(currentDoctorId).orElse(null);
-        if (currentDoctor == null) {
-            return Collections.emptyList();
-        }
-        
-        // 查找同科室的其他医生
-        List<Doctor> departmentDoctors = doctorRepository.findByDepartmentIdAndIdNot(
-                currentDoctor.getDepartment().getId(), currentDoctorId);
+    private List<Doctor> findAlternativeDoctors(Long currentDoctorId, LocalDateTime appointmentTime,
+                                                Map<Long, List<Doctor>> peerCache) {
+        List<Doctor> departmentDoctors = peerCache.computeIfAbsent(currentDoctorId, this::findDepartmentPeers);
         
         // 筛选出在目标时间可用的医生
         return departmentDoctors.stream()
                 .filter(doctor -> {
-                    boolean hasConflict = !checkDoctorConflicts(doctor.getId(), appointmentTime).isEmpty();
+                    boolean hasConflict = !isDoctorFree(doctor.getId(), appointmentTime);
                     boolean hasSchedule = hasDoctorSchedule(doctor.getId(), appointmentTime);
                     return !hasConflict && hasSchedule;
                 })
@@ -233,6 +245,26 @@ public class AppointmentConflictService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 按时间索引判断医生在指定时间是否空闲，用于推荐时间和替代医生的批量试算
+     */
+    private boolean isDoctorFree(Long doctorId, LocalDateTime time) {
+        return appointmentTimeIndex.findDoctorBookingsWithin(
+                doctorId, time, conflictDetectionConfig.getMinConflictIntervalMinutes()).isEmpty();
+    }
+    
+    /**
+     * 查找同科室的其他医生
+     */
+    private List<Doctor> findDepartmentPeers(Long doctorId) {
+        // 获取当前医生的科室
+        Doctor currentDoctor = doctorRepository.findById(doctorId).orElse(null);
+        if (currentDoctor == null) {
+            return Collections.emptyList();
+        }
+        return doctorRepository.findByDepartmentIdAndIdNot(currentDoctor.getDepartment().getId(), doctorId);
+    }
+    
     /**
      * 计算冲突风险等级
      */
@@ -323,10 +355,23 @@ public class AppointmentConflictService {
         List<Appointment> appointments = appointmentRepository
                 .findByPatientIdAndStatusIn(patientId, Arrays.asList("PENDING", "CONFIRMED"));
         
+        // 患者预约之间的冲突一次扫描全部得出，不再逐条预约查找
+        Map<Long, List<AppointmentConflictDTO>> patientConflicts = new HashMap<>();
+        for (ConflictSweepLine.Conflict<Appointment> conflict : ConflictSweepLine.findConflicts(
+                appointments, Appointment::getAppointmentTime, conflictDetectionConfig.getMinConflictIntervalMinutes())) {
+            Appointment first = conflict.getFirst();
+            Appointment second = conflict.getSecond();
+            patientConflicts.computeIfAbsent(first.getId(), id -> new ArrayList<>())
+                    .add(patientConflict(second.getId(), second.getAppointmentTime(), conflict.getMinutesApart()));
+            patientConflicts.computeIfAbsent(second.getId(), id -> new ArrayList<>())
+                    .add(patientConflict(first.getId(), first.getAppointmentTime(), conflict.getMinutesApart()));
+        }
+        
+        // 同一医生的多个预约共用一次同科室医生查询
+        Map<Long, List<Doctor>> peerCache = new HashMap<>();
         for (Appointment appointment : appointments) {
-            TimeConflictAnalysisDTO analysis = analyzeTimeConflicts(
-                    patientId, appointment.getDoctor().getId(), appointment.getAppointmentTime());
-            analyses.add(analysis);
+            analyses.add(analyze(patientId, appointment.getDoctor().getId(), appointment.getAppointmentTime(),
+                    appointment.getId(), patientConflicts.getOrDefault(appointment.getId(), new ArrayList<>()), peerCache));
         }
         
         return analyses;
@@ -341,10 +386,9 @@ public class AppointmentConflictService {
             return new TimeConflictAnalysisDTO();
         }
         
-        return analyzeTimeConflicts(
-                appointment.getPatient().getId(),
-                appointment.getDoctor().getId(),
-                appointment.getAppointmentTime());
+        Long patientId = appointment.getPatient().getId();
+        return analyze(patientId, appointment.getDoctor().getId(), appointment.getAppointmentTime(), appointmentId,
+                checkPatientConflicts(patientId, appointment.getAppointmentTime(), appointmentId), new HashMap<>());
     }
     
     /**
@@ -0,0 +1,20 @@
+package com.example.appointment.service;
+
+import com.example.appointment.entity.AppointmentEvent;
+
+/**
+ * 预约事件订阅者
+ * 由发件箱中继在预约事务提交后调用，投递语义为至少一次，实现需保证重复处理无副作用
+ */
+public interface AppointmentEventSubscriber {
+
+    /**
+     * 订阅者名称，用于日志
+     */
+    String getName();
+
+    /**
+     * 处理事件，抛出异常时事件稍后重试
+     */
+    void handle(AppointmentEvent event) throws Exception;
+}
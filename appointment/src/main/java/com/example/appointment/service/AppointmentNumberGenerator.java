@@ -0,0 +1,122 @@
+package com.example.appointment.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 预约编号生成器
+ * 编号格式：A + yyyyMMdd + 两位节点号 + 当天序号（至少6位），如 A2026101701000123。
+ * 序号按天单调递增，从 id_sequence 表按号段（hi/lo）批量领取，号段用完前生成编号不访问数据库；
+ * 号段在独立事务中领取，预约事务回滚不会导致号段被重复分配。多实例部署时各实例配置不同的节点号
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentNumberGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentNumberGenerator.class);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // 一条语句完成号段领取：新的一天插入首个号段，否则在原值上前进一个号段，LAST_INSERT_ID 返回号段终点
+    private static final String RESERVE_SQL =
+            "INSERT INTO id_sequence (name, next_value) VALUES (?, LAST_INSERT_ID(?)) "
+                    + "ON DUPLICATE KEY UPDATE next_value = LAST_INSERT_ID(next_value + ?)";
+
+    private static final int MIN_SEQUENCE_DIGITS = 6;
+
+    // 节点号固定占两位，超出范围会与其他节点的编号前缀混淆
+    private static final int MAX_NODE_ID = 99;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${appointment.number.node-id:0}")
+    private int nodeId;
+
+    @Value("${appointment.number.block-size:100}")
+    private int blockSize;
+
+    private LocalDate currentDay;
+    private String prefix;
+    private long next;
+    private long max;
+
+    /**
+     * 启动时校验配置，节点号或号段大小无效时启动失败
+     */
+    @PostConstruct
+    public void validate() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("appointment.number.node-id 必须在 0-" + MAX_NODE_ID + " 之间，当前为 " + nodeId);
+        }
+        if (blockSize <= 0) {
+            throw new IllegalStateException("appointment.number.block-size 必须大于0，当前为 " + blockSize);
+        }
+    }
+
+    /**
+     * 生成下一个预约编号
+     */
+    public synchronized String next() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(currentDay)) {
+            currentDay = today;
+            prefix = "A" + today.format(DATE_FORMATTER) + (nodeId < 10 ? "0" : "") + nodeId;
+            next = 0;
+            max = 0;
+        }
+        if (next >= max) {
+            reserveBlock(today);
+        }
+        return format(prefix, next++);
+    }
+
+    private void reserveBlock(LocalDate day) {
+        String sequenceName = "appointment:" + day.format(DATE_FORMATTER) + ":" + nodeId;
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long high = template.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(RESERVE_SQL)) {
+                ps.setString(1, sequenceName);
+                ps.setLong(2, blockSize);
+                ps.setLong(3, blockSize);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }));
+        if (high == null) {
+            throw new IllegalStateException("领取预约编号号段失败");
+        }
+        max = high;
+        next = high - blockSize;
+        log.debug("领取预约编号号段 {} [{}, {})", sequenceName, next, max);
+    }
+
+    private static String format(String prefix, long sequence) {
+        String digits = Long.toString(sequence);
+        StringBuilder sb = new StringBuilder(prefix.length() + Math.max(MIN_SEQUENCE_DIGITS, digits.length()));
+        sb.append(prefix);
+        for (int i = digits.length(); i < MIN_SEQUENCE_DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+}
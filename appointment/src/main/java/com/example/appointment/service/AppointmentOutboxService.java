@@ -0,0 +1,205 @@
+package com.example.appointment.service;
+
+import com.example.appointment.entity.AppointmentEvent;
+import com.example.appointment.repository.AppointmentEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 预约事件发件箱
+ * 预约事务内只写入一条事件记录，冲突检测、提醒安排等后续处理由中继在后台按批次投递给各订阅者，
+ * 不再占用预约事务的时间。事件全部订阅者处理成功后才标记为已处理；失败时记录已成功的订阅者，
+ * 之后按指数退避只对失败的订阅者重试（至少一次投递），超过最大重试次数后放弃并记录错误。
+ * 中继通过数据库命名锁选出唯一执行节点，多实例部署时不会重复投递同一批事件
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentOutboxService.class);
+
+    private static final String LEADER_LOCK = "appointment_outbox_relay";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AppointmentEventRepository eventRepository;
+    private final List<AppointmentEventSubscriber> subscribers;
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderLockService leaderLockService;
+
+    @Value("${appointment.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${appointment.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${appointment.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${appointment.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 最近一次运行中已处理事件从写入到处理完成的最大延迟（毫秒）
+    private volatile long lastProcessedLagMillis;
+
+    /**
+     * 在当前预约事务中写入事件
+     */
+    public void publish(Long appointmentId, String eventType) {
+        AppointmentEvent event = new AppointmentEvent();
+        event.setAppointmentId(appointmentId);
+        event.setEventType(eventType);
+        eventRepository.save(event);
+    }
+
+    /**
+     * 在当前事务中批量写入同类型事件
+     */
+    public void publishAll(List<Long> appointmentIds, String eventType) {
+        if (appointmentIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO appointment_events (appointment_id, event_type, attempts, created_at) VALUES (?, ?, 0, ?)",
+                appointmentIds, batchSize, (ps, appointmentId) -> {
+                    ps.setLong(1, appointmentId);
+                    ps.setString(2, eventType);
+                    ps.setTimestamp(3, now);
+                });
+    }
+
+    /**
+     * 定时投递未处理的事件，多实例部署时只有持有命名锁的节点投递
+     */
+    @Scheduled(fixedDelayString = "${appointment.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            leaderLockService.runAsLeader(LEADER_LOCK, this::relayPending);
+        } catch (Exception e) {
+            log.error("预约事件投递失败", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int relayPending() {
+        long lastId = 0L;
+        int processed = 0;
+        long maxLag = 0L;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            List<AppointmentEvent> events = eventRepository.findPendingBatch(lastId, now, batchSize);
+            if (events.isEmpty()) {
+                break;
+            }
+            lastId = events.get(events.size() - 1).getId();
+
+            List<Long> done = new ArrayList<>(events.size());
+            for (AppointmentEvent event : events) {
+                if (deliver(event, now)) {
+                    done.add(event.getId());
+                    maxLag = Math.max(maxLag, Duration.between(event.getCreatedAt(), now).toMillis());
+                }
+            }
+            if (!done.isEmpty()) {
+                eventRepository.markProcessed(done, now);
+                processed += done.size();
+            }
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        if (processed > 0) {
+            lastProcessedLagMillis = maxLag;
+            log.info("预约事件投递完成，处理 {} 条，最大延迟 {} ms", processed, maxLag);
+        }
+        return processed;
+    }
+
+    /**
+     * 当前积压延迟：最早一条未处理事件距今的毫秒数，没有积压时为0
+     */
+    public long getPendingLagMillis() {
+        LocalDateTime oldest = eventRepository.findOldestPendingCreatedAt();
+        return oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()) : 0L;
+    }
+
+    /**
+     * 最近一次投递中事件从写入到处理完成的最大延迟
+     */
+    public long getLastProcessedLagMillis() {
+        return lastProcessedLagMillis;
+    }
+
+    /**
+     * 交给尚未处理成功的订阅者处理，某个订阅者失败不影响其余订阅者；
+     * 失败时记录已成功的订阅者，重试只投递给失败的订阅者，重试间隔按失败次数指数增长
+     * @return 是否可以标记为已处理（全部成功，或已超过最大重试次数）
+     */
+    private boolean deliver(AppointmentEvent event, LocalDateTime now) {
+        Set<String> delivered = new LinkedHashSet<>();
+        if (StringUtils.hasText(event.getDeliveredSubscribers())) {
+            delivered.addAll(Arrays.asList(event.getDeliveredSubscribers().split(",")));
+        }
+        List<String> errors = new ArrayList<>();
+        for (AppointmentEventSubscriber subscriber : subscribers) {
+            if (delivered.contains(subscriber.getName())) {
+                continue;
+            }
+            try {
+                subscriber.handle(event);
+                delivered.add(subscriber.getName());
+            } catch (Exception e) {
+                errors.add(subscriber.getName() + ": " + e.getMessage());
+                log.warn("预约事件 {} 由 {} 处理失败: {}", event.getId(), subscriber.getName(), e.getMessage());
+            }
+        }
+        if (errors.isEmpty()) {
+            return true;
+        }
+
+        int attempts = event.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        LocalDateTime nextAttemptAt = giveUp ? null : now.plus(backoff(attempts));
+        String error = String.join("; ", errors);
+        eventRepository.recordFailure(event.getId(),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                String.join(",", delivered), nextAttemptAt);
+        if (giveUp) {
+            log.error("预约事件 {}（预约 {}）处理失败 {} 次，已放弃: {}", event.getId(), event.getAppointmentId(), attempts, error);
+            return true;
+        }
+        log.warn("预约事件 {} 第 {} 次处理失败，{} 后重试", event.getId(), attempts, nextAttemptAt);
+        return false;
+    }
+
+    /**
+     * 第 attempts 次失败后的重试间隔：retry-backoff-ms * 2^(attempts-1)，不超过 max-backoff-ms
+     */
+    private Duration backoff(int attempts) {
+        long delay = retryBackoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMs));
+    }
+}
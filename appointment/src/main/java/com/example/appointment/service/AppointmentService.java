@@ -2,6 +2,7 @@ package com.example.appointment.service;
 
 import com.example.appointment.dto.AppointmentDTO;
 import com.example.appointment.dto.AppointmentResultDTO;
+import com.example.appointment.dto.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -37,6 +38,13 @@ public interface AppointmentService {
     // 获取科室的预约列表
     Page<AppointmentDTO> getDepartmentAppointments(Long departmentId, Pageable pageable);
 
+    // 游标分页获取患者、医生、科室的预约列表（可按日期、状态筛选，可选返回总数估计）
+    CursorPage<AppointmentDTO> getPatientAppointmentsByCursor(Long patientId, LocalDate date, String status, String cursor, int size, boolean includeTotal);
+
+    CursorPage<AppointmentDTO> getDoctorAppointmentsByCursor(Long doctorId, LocalDate date, String status, String cursor, int size, boolean includeTotal);
+
+    CursorPage<AppointmentDTO> getDepartmentAppointmentsByCursor(Long departmentId, LocalDate date, String status, String cursor, int size, boolean includeTotal);
+
     // 检查医生在指定时间段是否有空闲
     boolean isDoctorAvailable(Long doctorId, LocalDateTime appointmentTime);
 
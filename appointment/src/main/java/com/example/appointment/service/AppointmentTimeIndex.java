@@ -0,0 +1,312 @@
+package com.example.appointment.service;
+
+import com.example.appointment.entity.Appointment;
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.util.SqlDateUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预约时间索引
+ * 按医生、患者分别维护按预约时间排序的有效预约（待确认、已确认），通过区间查询在O(log n)内找出指定时间前后N分钟内的预约，
+ * 供推荐时间、替代医生等需要逐个候选试算的场景使用，并维护每位医生的有效预约数。
+ * 索引只随本节点的预约变更实时更新，其他节点的变更要等定时全量同步后才可见，因此冲突判定本身以数据库查询（load* 方法）为准
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentTimeIndex implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentTimeIndex.class);
+
+    private static final List<String> ACTIVE_STATUSES = Arrays.asList(
+            AppointmentStatus.PENDING.name(), AppointmentStatus.CONFIRMED.name());
+
+    private static final Comparator<Booking> BY_TIME = Comparator
+            .comparing(Booking::getAppointmentTime)
+            .thenComparing(Booking::getAppointmentId);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<Long, NavigableSet<Booking>> doctorIndex = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Booking>> patientIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+
+    /**
+     * 医生ID -> 索引中的有效预约数
+     */
+    private final Map<Long, AtomicInteger> doctorCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 预约ID -> 本节点最近一次更新该预约的时间（System.nanoTime），同步时跳过同步开始后本节点已更新的预约
+     */
+    private final Map<Long, Long> localUpdates = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时加载今天及以后的有效预约
+     */
+    @Override
+    public void run(String... args) {
+        resync();
+    }
+
+    /**
+     * 按数据库全量同步索引：补上其他节点新建的预约，移除已在其他节点取消的预约和今天之前的预约
+     */
+    @Scheduled(initialDelayString = "${appointment.time-index.resync-interval-ms:60000}",
+            fixedDelayString = "${appointment.time-index.resync-interval-ms:60000}")
+    public synchronized void resync() {
+        long startedAt = System.nanoTime();
+        List<Object[]> rows = appointmentRepository.findActiveAppointmentTimes(
+                LocalDate.now().atStartOfDay(), ACTIVE_STATUSES);
+
+        Set<Long> active = new HashSet<>(rows.size() * 2);
+        int changed = 0;
+        for (Object[] row : rows) {
+            Booking booking = toBooking(row);
+            active.add(booking.getAppointmentId());
+            if (updatedSince(booking.getAppointmentId(), startedAt)) {
+                continue;
+            }
+            Booking current = bookings.get(booking.getAppointmentId());
+            if (current == null || !current.sameAs(booking)) {
+                add(booking);
+                changed++;
+            }
+        }
+        for (Long appointmentId : new ArrayList<>(bookings.keySet())) {
+            if (!active.contains(appointmentId) && !updatedSince(appointmentId, startedAt)) {
+                remove(appointmentId);
+                changed++;
+            }
+        }
+        // 同步开始前的本地更新在提交后才登记，已包含在本次读取的数据中
+        localUpdates.values().removeIf(updatedAt -> updatedAt - startedAt < 0);
+        log.debug("预约时间索引同步完成，共 {} 条预约，更新 {} 条", bookings.size(), changed);
+    }
+
+    /**
+     * 预约创建或状态变更后调用，事务提交后再更新索引
+     */
+    public void onAppointmentChanged(Appointment appointment) {
+        Booking booking = new Booking(
+                appointment.getId(),
+                appointment.getDoctor().getId(),
+                appointment.getPatient().getId(),
+                appointment.getAppointmentTime());
+        boolean active = ACTIVE_STATUSES.contains(appointment.getStatus());
+
+        Runnable update = () -> {
+            markUpdated(booking.getAppointmentId());
+            remove(booking.getAppointmentId());
+            if (active) {
+                add(booking);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * 预约被批量取消后调用，事务提交后从索引中移除
+     */
+    public void onAppointmentsCancelled(Collection<Long> appointmentIds) {
+        Runnable update = () -> appointmentIds.forEach(appointmentId -> {
+            markUpdated(appointmentId);
+            remove(appointmentId);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * 从索引中查找医生在指定时间前后不足 windowMinutes 分钟的预约（可能缺少其他节点最近的变更）
+     */
+    public List<Booking> findDoctorBookingsWithin(Long doctorId, LocalDateTime time, int windowMinutes) {
+        return findWithin(doctorIndex.get(doctorId), time, windowMinutes);
+    }
+
+    /**
+     * 从索引中查找患者在指定时间前后不足 windowMinutes 分钟的预约（可能缺少其他节点最近的变更）
+     */
+    public List<Booking> findPatientBookingsWithin(Long patientId, LocalDateTime time, int windowMinutes) {
+        return findWithin(patientIndex.get(patientId), time, windowMinutes);
+    }
+
+    /**
+     * 从数据库查找医生在指定时间前后不足 windowMinutes 分钟的预约
+     */
+    public List<Booking> loadDoctorBookingsWithin(Long doctorId, LocalDateTime time, int windowMinutes) {
+        return toBookings(appointmentRepository.findDoctorActiveAppointmentTimesWithin(
+                doctorId, time.minusMinutes(windowMinutes), time.plusMinutes(windowMinutes), ACTIVE_STATUSES));
+    }
+
+    /**
+     * 从数据库查找患者在指定时间前后不足 windowMinutes 分钟的预约
+     */
+    public List<Booking> loadPatientBookingsWithin(Long patientId, LocalDateTime time, int windowMinutes) {
+        return toBookings(appointmentRepository.findPatientActiveAppointmentTimesWithin(
+                patientId, time.minusMinutes(windowMinutes), time.plusMinutes(windowMinutes), ACTIVE_STATUSES));
+    }
+
+    /**
+     * 医生今天及以后的有效预约数（当天已过时间但未就诊的预约也计入），O(1)
+     */
+    public int countDoctorUpcomingBookings(Long doctorId) {
+        AtomicInteger count = doctorCounts.get(doctorId);
+        return count != null ? Math.max(0, count.get()) : 0;
+    }
+
+    private List<Booking> findWithin(NavigableSet<Booking> set, LocalDateTime time, int windowMinutes) {
+        if (set == null) {
+            return Collections.emptyList();
+        }
+        // 开区间 (time - window, time + window)，与原逐条比较“间隔小于N分钟”的语义一致
+        Booking from = new Booking(Long.MAX_VALUE, null, null, time.minusMinutes(windowMinutes));
+        Booking to = new Booking(Long.MIN_VALUE, null, null, time.plusMinutes(windowMinutes));
+        return new ArrayList<>(set.subSet(from, false, to, false));
+    }
+
+    private void add(Booking booking) {
+        remove(booking.getAppointmentId());
+        bookings.put(booking.getAppointmentId(), booking);
+        doctorCounts.computeIfAbsent(booking.getDoctorId(), id -> new AtomicInteger()).incrementAndGet();
+        addTo(doctorIndex, booking.getDoctorId(), booking);
+        addTo(patientIndex, booking.getPatientId(), booking);
+    }
+
+    private void remove(Long appointmentId) {
+        Booking old = bookings.remove(appointmentId);
+        if (old == null) {
+            return;
+        }
+        AtomicInteger count = doctorCounts.get(old.getDoctorId());
+        if (count != null) {
+            count.decrementAndGet();
+        }
+        NavigableSet<Booking> doctorSet = doctorIndex.get(old.getDoctorId());
+        if (doctorSet != null) {
+            doctorSet.remove(old);
+        }
+        NavigableSet<Booking> patientSet = patientIndex.get(old.getPatientId());
+        if (patientSet != null) {
+            patientSet.remove(old);
+        }
+    }
+
+    private void addTo(Map<Long, NavigableSet<Booking>> index, Long key, Booking booking) {
+        NavigableSet<Booking> set = index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(BY_TIME));
+        set.add(booking);
+
+        // 顺带清理今天之前的预约，避免索引无限增长
+        Booking cutoff = new Booking(Long.MIN_VALUE, null, null, LocalDate.now().atStartOfDay());
+        for (Booking expired : set.headSet(cutoff, false)) {
+            set.remove(expired);
+            remove(expired.getAppointmentId());
+        }
+    }
+
+    private void markUpdated(Long appointmentId) {
+        localUpdates.put(appointmentId, System.nanoTime());
+    }
+
+    private boolean updatedSince(Long appointmentId, long since) {
+        Long updatedAt = localUpdates.get(appointmentId);
+        return updatedAt != null && updatedAt - since >= 0;
+    }
+
+    private static List<Booking> toBookings(List<Object[]> rows) {
+        List<Booking> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(toBooking(row));
+        }
+        return result;
+    }
+
+    private static Booking toBooking(Object[] row) {
+        return new Booking(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                SqlDateUtil.toLocalDateTime(row[3]));
+    }
+
+    /**
+     * 索引中的预约条目
+     */
+    public static class Booking {
+        private final Long appointmentId;
+        private final Long doctorId;
+        private final Long patientId;
+        private final LocalDateTime appointmentTime;
+
+        public Booking(Long appointmentId, Long doctorId, Long patientId, LocalDateTime appointmentTime) {
+            this.appointmentId = appointmentId;
+            this.doctorId = doctorId;
+            this.patientId = patientId;
+            this.appointmentTime = appointmentTime;
+        }
+
+        public Long getAppointmentId() {
+            return appointmentId;
+        }
+
+        public Long getDoctorId() {
+            return doctorId;
+        }
+
+        public Long getPatientId() {
+            return patientId;
+        }
+
+        public LocalDateTime getAppointmentTime() {
+            return appointmentTime;
+        }
+
+        boolean sameAs(Booking other) {
+            return Objects.equals(doctorId, other.doctorId)
+                    && Objects.equals(patientId, other.patientId)
+                    && Objects.equals(appointmentTime, other.appointmentTime);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.AvailabilityCalendarDTO;
+import com.example.appointment.repository.DoctorScheduleRepository;
+import com.example.appointment.util.SqlDateUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 科室月度号源日历
+ * 一条分组查询算出科室当月每位医生每天每个时段的排班余号，压缩为位图后按（科室, 月份）缓存；
+ * 排班写入在事务提交后清除对应月份的缓存，预约引起的余号变化由较短的缓存有效期兜底
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityCalendarService {
+
+    public static final List<String> PERIODS = Arrays.asList("MORNING", "AFTERNOON", "EVENING");
+
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    private final DoctorScheduleRepository scheduleRepository;
+
+    @Value("${appointment.calendar.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    /**
+     * 科室ID:年月 -> 日历
+     */
+    private final Map<String, CachedCalendar> cache = new ConcurrentHashMap<>();
+
+    public AvailabilityCalendarDTO getDepartmentCalendar(Long departmentId, int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        String key = key(departmentId, yearMonth);
+        long now = System.currentTimeMillis();
+        CachedCalendar cached = cache.get(key);
+        if (cached != null && cached.expireAt > now) {
+            return cached.calendar;
+        }
+
+        AvailabilityCalendarDTO calendar = build(departmentId, yearMonth);
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.values().removeIf(entry -> entry.expireAt <= now);
+        }
+        cache.put(key, new CachedCalendar(calendar, now + cacheTtlSeconds * 1000));
+        return calendar;
+    }
+
+    /**
+     * 排班变更后清除科室该日期所在月份的日历缓存，在事务中调用时于提交后清除
+     */
+    public void evict(Long departmentId, LocalDate date) {
+        if (departmentId == null || date == null) {
+            return;
+        }
+        evictAfterCommit(List.of(key(departmentId, YearMonth.from(date))));
+    }
+
+    /**
+     * 清除科室日期范围（含首尾）涉及的各月份日历缓存
+     */
+    public void evict(Long departmentId, LocalDate startDate, LocalDate endDate) {
+        List<String> keys = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            keys.add(key(departmentId, month));
+        }
+        evictAfterCommit(keys);
+    }
+
+    private void evictAfterCommit(List<String> keys) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.forEach(cache::remove);
+                }
+            });
+        } else {
+            keys.forEach(cache::remove);
+        }
+    }
+
+    private AvailabilityCalendarDTO build(Long departmentId, YearMonth yearMonth) {
+        int days = yearMonth.lengthOfMonth();
+        int slots = days * PERIODS.size();
+        Map<Long, DoctorBits> doctors = new LinkedHashMap<>();
+
+        List<Object[]> rows = scheduleRepository.summarizeDepartmentAvailability(
+                departmentId, yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+        for (Object[] row : rows) {
+            int periodIndex = PERIODS.indexOf((String) row[3]);
+            if (periodIndex < 0) {
+                continue;
+            }
+            long doctorId = ((Number) row[0]).longValue();
+            DoctorBits bits = doctors.computeIfAbsent(doctorId, id -> new DoctorBits((String) row[1], slots));
+            int slot = (SqlDateUtil.toLocalDate(row[2]).getDayOfMonth() - 1) * PERIODS.size() + periodIndex;
+            int capacity = row[4] != null ? ((Number) row[4]).intValue() : 0;
+            int available = row[5] != null ? ((Number) row[5]).intValue() : 0;
+            if (available > 0) {
+                bits.open[slot / 8] |= (byte) (1 << (slot % 8));
+            }
+            int level = level(capacity, available);
+            bits.levels[slot / 4] |= (byte) (level << ((slot % 4) * 2));
+        }
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        List<AvailabilityCalendarDTO.DoctorAvailability> doctorList = new ArrayList<>(doctors.size());
+        doctors.forEach((doctorId, bits) -> {
+            AvailabilityCalendarDTO.DoctorAvailability availability = new AvailabilityCalendarDTO.DoctorAvailability();
+            availability.setDoctorId(doctorId);
+            availability.setDoctorName(bits.doctorName);
+            availability.setOpen(encoder.encodeToString(bits.open));
+            availability.setLevels(encoder.encodeToString(bits.levels));
+            doctorList.add(availability);
+        });
+
+        AvailabilityCalendarDTO calendar = new AvailabilityCalendarDTO();
+        calendar.setDepartmentId(departmentId);
+        calendar.setYear(yearMonth.getYear());
+        calendar.setMonth(yearMonth.getMonthValue());
+        calendar.setDays(days);
+        calendar.setPeriods(PERIODS);
+        calendar.setDoctors(doctorList);
+        return calendar;
+    }
+
+    /**
+     * 余号等级：0-无排班或停诊，1-已满或剩余不足20%，2-剩余20%-50%，3-剩余超过50%
+     */
+    private static int level(int capacity, int available) {
+        if (capacity <= 0) {
+            return 0;
+        }
+        double remaining = (double) available / capacity;
+        if (remaining < 0.2) {
+            return 1;
+        }
+        return remaining <= 0.5 ? 2 : 3;
+    }
+
+    private static String key(Long departmentId, YearMonth yearMonth) {
+        return departmentId + ":" + yearMonth;
+    }
+
+    private static class DoctorBits {
+        private final String doctorName;
+        private final byte[] open;
+        private final byte[] levels;
+
+        DoctorBits(String doctorName, int slots) {
+            this.doctorName = doctorName;
+            this.open = new byte[(slots + 7) / 8];
+            this.levels = new byte[(slots + 3) / 4];
+        }
+    }
+
+    private static class CachedCalendar {
+        private final AvailabilityCalendarDTO calendar;
+        private final long expireAt;
+
+        CachedCalendar(AvailabilityCalendarDTO calendar, long expireAt) {
+            this.calendar = calendar;
+            this.expireAt = expireAt;
+        }
+    }
+}
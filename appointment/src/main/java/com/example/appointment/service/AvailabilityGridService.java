@@ -0,0 +1,101 @@
+package com.example.appointment.service;
+
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.repository.DoctorScheduleRepository;
+import com.example.appointment.util.SqlDateUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 科室号源网格
+ * 用两条分组查询（排班容量、已预约数）一次算出科室在日期范围内每天每个时段的剩余号源，
+ * 容量取自排班的实际最大预约数
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityGridService {
+
+    private static final List<String> ACTIVE_STATUSES = Arrays.asList(
+            AppointmentStatus.PENDING.name(), AppointmentStatus.CONFIRMED.name());
+
+    private final DoctorScheduleRepository scheduleRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    /**
+     * 计算科室在日期范围内的号源网格
+     * @return 日期 -> (时段 -> 号源)，只包含有正常排班的日期和时段
+     */
+    public Map<LocalDate, Map<String, Cell>> getDepartmentGrid(Long departmentId, LocalDate startDate, LocalDate endDate) {
+        // 医生ID:日期:时段 -> 已预约数
+        Map<String, Integer> booked = new HashMap<>();
+        List<Object[]> bookingRows = appointmentRepository.countDepartmentBookingsByDoctorDatePeriod(
+                departmentId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), ACTIVE_STATUSES);
+        for (Object[] row : bookingRows) {
+            booked.put(key(((Number) row[0]).longValue(), SqlDateUtil.toLocalDate(row[1]), (String) row[2]),
+                    ((Number) row[3]).intValue());
+        }
+
+        Map<LocalDate, Map<String, Cell>> grid = new TreeMap<>();
+        List<Object[]> scheduleRows = scheduleRepository.findDepartmentScheduleCapacity(departmentId, startDate, endDate);
+        for (Object[] row : scheduleRows) {
+            long doctorId = ((Number) row[0]).longValue();
+            LocalDate date = SqlDateUtil.toLocalDate(row[1]);
+            String period = (String) row[2];
+            int capacity = row[3] != null ? ((Number) row[3]).intValue() : 0;
+            int bookedCount = booked.getOrDefault(key(doctorId, date, period), 0);
+
+            Cell cell = grid.computeIfAbsent(date, d -> new TreeMap<>()).computeIfAbsent(period, p -> new Cell());
+            cell.capacity += capacity;
+            cell.booked += Math.min(bookedCount, capacity);
+            cell.doctorCount++;
+        }
+        return grid;
+    }
+
+    /**
+     * 科室在指定日期、时段的剩余号源
+     */
+    public int getRemaining(Long departmentId, LocalDate date, String period) {
+        Cell cell = getDepartmentGrid(departmentId, date, date)
+                .getOrDefault(date, new HashMap<>())
+                .get(period);
+        return cell != null ? cell.getRemaining() : 0;
+    }
+
+    private static String key(long doctorId, LocalDate date, String period) {
+        return doctorId + ":" + date + ":" + period;
+    }
+
+    /**
+     * 网格中的一格：某天某时段全科室的号源
+     */
+    public static class Cell {
+        private int capacity;
+        private int booked;
+        private int doctorCount;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getBooked() {
+            return booked;
+        }
+
+        public int getDoctorCount() {
+            return doctorCount;
+        }
+
+        public int getRemaining() {
+            return Math.max(0, capacity - booked);
+        }
+    }
+}
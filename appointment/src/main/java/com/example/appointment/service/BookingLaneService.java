@@ -0,0 +1,221 @@
+package com.example.appointment.service;
+
+import com.example.appointment.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 医生预约通道
+ * 按医生ID哈希到固定数量的单线程通道，同一医生的预约在通道内按到达顺序依次执行，
+ * 不再在同一排班行上争抢数据库行锁；通道每次从队列取出一批请求放在同一个事务中提交。
+ * 批内某个请求失败时整批回滚，只拒绝该请求，其余请求重新组成一批执行；提交阶段失败、无法确定是哪个请求时才逐个执行。
+ * 请求线程在排队阶段最多等待配置的超时时间，超时的请求不会再被执行；请求一旦被通道取出，其所在批次可能已经提交，
+ * 请求线程会一直等到执行结果，不会向客户端返回超时。
+ * 调用方已开启事务时（如携带幂等键的请求需要与幂等记录一同提交）直接在当前事务中执行，不经过通道
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingLaneService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingLaneService.class);
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${appointment.booking.lanes.enabled:false}")
+    private boolean enabled;
+
+    @Value("${appointment.booking.lanes.count:8}")
+    private int laneCount;
+
+    @Value("${appointment.booking.lanes.batch-size:16}")
+    private int batchSize;
+
+    @Value("${appointment.booking.lanes.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${appointment.booking.lanes.timeout-ms:3000}")
+    private long timeoutMs;
+
+    private Lane[] lanes;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!enabled) {
+            return;
+        }
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i);
+            lanes[i].start();
+        }
+        log.info("预约通道已启用，共 {} 个通道", laneCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lanes != null) {
+            for (Lane lane : lanes) {
+                lane.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 在事务中执行医生的预约任务：启用通道时交给医生所属通道执行并等待结果，
+     * 未启用通道或当前线程已在事务中时直接在当前线程执行
+     * @throws BusinessException 通道排队已满或排队超时（此时任务未执行）
+     */
+    public <T> T execute(Long doctorId, Supplier<T> task) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> task.get());
+        }
+        Lane lane = lanes[Math.floorMod(doctorId.hashCode(), lanes.length)];
+        BookingRequest<T> request = new BookingRequest<>(task);
+        if (!lane.mailbox.offer(request)) {
+            throw new BusinessException("当前预约人数较多，请稍后重试");
+        }
+
+        try {
+            try {
+                return request.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (request.cancel()) {
+                    throw new BusinessException("预约处理超时，请稍后重试");
+                }
+                // 已被通道取出执行，所在批次可能已经提交，返回超时会让客户端在预约已成立时重试
+                return request.future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("预约处理被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BusinessException("预约处理失败", cause);
+        }
+    }
+
+    private class Lane extends Thread {
+        private final BlockingQueue<BookingRequest<?>> mailbox = new LinkedBlockingQueue<>(queueCapacity);
+
+        Lane(int index) {
+            super("booking-lane-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<BookingRequest<?>> batch = new ArrayList<>(batchSize);
+            while (!isInterrupted()) {
+                try {
+                    batch.add(mailbox.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                mailbox.drainTo(batch, batchSize - 1);
+                // 排队超时已放弃的请求不再执行，其余请求标记为执行中，请求线程此后不再放弃等待
+                batch.removeIf(request -> !request.start());
+                if (!batch.isEmpty()) {
+                    process(batch);
+                }
+                batch.clear();
+            }
+        }
+
+        private void process(List<BookingRequest<?>> batch) {
+            List<BookingRequest<?>> pending = new ArrayList<>(batch);
+            while (pending.size() > 1) {
+                AtomicReference<BookingRequest<?>> running = new AtomicReference<>();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (BookingRequest<?> request : pending) {
+                            running.set(request);
+                            request.execute();
+                        }
+                        running.set(null);
+                    });
+                    pending.forEach(BookingRequest::complete);
+                    return;
+                } catch (RuntimeException e) {
+                    BookingRequest<?> failed = running.get();
+                    if (failed == null) {
+                        log.debug("预约批次提交失败，逐个重新执行: {}", e.getMessage());
+                        break;
+                    }
+                    // 整批已回滚：只拒绝出错的请求，其余请求重新组成一批执行
+                    failed.future.completeExceptionally(e);
+                    pending.remove(failed);
+                }
+            }
+            for (BookingRequest<?> request : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> request.execute());
+                    request.complete();
+                } catch (RuntimeException e) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static class BookingRequest<T> {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private T result;
+
+        BookingRequest(Supplier<T> task) {
+            this.task = task;
+        }
+
+        /**
+         * 通道取出请求时调用，请求已被放弃时返回false
+         */
+        boolean start() {
+            return state.compareAndSet(QUEUED, RUNNING);
+        }
+
+        /**
+         * 请求线程等待超时时调用，请求已被通道取出时返回false
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        void execute() {
+            result = task.get();
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
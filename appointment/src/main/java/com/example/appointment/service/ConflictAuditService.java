@@ -0,0 +1,218 @@
+package com.example.appointment.service;
+
+import com.example.appointment.config.ConflictDetectionConfig;
+import com.example.appointment.entity.AppointmentConflictReport;
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.repository.AppointmentConflictReportRepository;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.util.SqlDateUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 全院预约冲突审计
+ * 一次查询读出指定日期的全部有效预约，按医生、患者分组后在 fork-join 线程池中并行做扫描线冲突检测，
+ * 结果整批写入 appointment_conflict_reports（同一日期重跑时先删后写）。每晚定时审计次日的预约，管理员也可手动触发；
+ * 每次运行前通过数据库命名锁选出唯一执行节点，避免多实例部署时同时重写同一日期的报告；
+ * 命名锁单独占用一个连接，读取和写入报告使用连接池中的其他连接（见 LeaderLockService）
+ */
+@Service
+@RequiredArgsConstructor
+public class ConflictAuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictAuditService.class);
+
+    private static final List<String> ACTIVE_STATUSES = Arrays.asList(
+            AppointmentStatus.PENDING.name(), AppointmentStatus.CONFIRMED.name());
+
+    private static final String LEADER_LOCK = "appointment_conflict_audit";
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentConflictReportRepository reportRepository;
+    private final ConflictDetectionConfig conflictDetectionConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderLockService leaderLockService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${appointment.conflict.audit-parallelism:4}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private TransactionTemplate transactionTemplate;
+
+    // 本节点内防止两次审计重叠
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 每晚审计次日的预约
+     */
+    @Scheduled(cron = "${appointment.conflict.audit-cron:0 30 2 * * ?}")
+    public void auditTomorrow() {
+        audit(LocalDate.now().plusDays(1));
+    }
+
+    /**
+     * 审计指定日期的预约并重写该日期的冲突报告
+     * @return 审计统计：appointmentCount、doctorConflicts、patientConflicts、durationMs等
+     */
+    public Map<String, Object> audit(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            return skipped("上一次冲突审计仍在进行");
+        }
+        try {
+            // 多实例部署时只有持有命名锁的节点执行
+            return leaderLockService.runAsLeader(LEADER_LOCK, () -> runAudit(date))
+                    .orElseGet(() -> {
+                        log.info("其他节点正在进行冲突审计，跳过本次运行");
+                        return skipped("其他节点正在进行冲突审计");
+                    });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> runAudit(LocalDate date) {
+        long startNanos = System.nanoTime();
+        List<AppointmentTimeIndex.Booking> bookings = new ArrayList<>();
+        for (Object[] row : appointmentRepository.findActiveAppointmentTimesBetween(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), ACTIVE_STATUSES)) {
+            bookings.add(new AppointmentTimeIndex.Booking(
+                    ((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    SqlDateUtil.toLocalDateTime(row[3])));
+        }
+        long loadedNanos = System.nanoTime();
+
+        List<Object[]> doctorRows = sweep(bookings, AppointmentTimeIndex.Booking::getDoctorId,
+                AppointmentConflictReport.TYPE_DOCTOR, date);
+        List<Object[]> patientRows = sweep(bookings, AppointmentTimeIndex.Booking::getPatientId,
+                AppointmentConflictReport.TYPE_PATIENT, date);
+        long sweptNanos = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            reportRepository.deleteByAuditDate(date);
+            insert(doctorRows);
+            insert(patientRows);
+        });
+        long finishedNanos = System.nanoTime();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("auditDate", date);
+        result.put("appointmentCount", bookings.size());
+        result.put("doctorConflicts", doctorRows.size());
+        result.put("patientConflicts", patientRows.size());
+        result.put("loadMs", TimeUnit.NANOSECONDS.toMillis(loadedNanos - startNanos));
+        result.put("sweepMs", TimeUnit.NANOSECONDS.toMillis(sweptNanos - loadedNanos));
+        result.put("writeMs", TimeUnit.NANOSECONDS.toMillis(finishedNanos - sweptNanos));
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(finishedNanos - startNanos));
+        log.info("{} 预约冲突审计完成：{} 个预约，医生冲突 {} 对，患者冲突 {} 对，耗时 {} ms（扫描 {} ms）",
+                date, bookings.size(), doctorRows.size(), patientRows.size(),
+                result.get("durationMs"), result.get("sweepMs"));
+        return result;
+    }
+
+    /**
+     * 查询指定日期的冲突报告
+     * @param conflictType DOCTOR 或 PATIENT，为空时返回全部
+     */
+    public List<AppointmentConflictReport> getReport(LocalDate date, String conflictType, int limit) {
+        return reportRepository.findByAuditDate(date, conflictType, limit);
+    }
+
+    /**
+     * 按 owner 分组后并行扫描，每组独立计算，互不共享状态
+     * @return 待写入的报告行
+     */
+    private List<Object[]> sweep(List<AppointmentTimeIndex.Booking> bookings,
+                                 Function<AppointmentTimeIndex.Booking, Long> ownerOf, String type, LocalDate date) {
+        Collection<List<AppointmentTimeIndex.Booking>> groups = bookings.stream()
+                .collect(Collectors.groupingBy(ownerOf)).values();
+        long minInterval = conflictDetectionConfig.getMinConflictIntervalMinutes();
+        try {
+            return pool.submit(() -> groups.parallelStream()
+                    .filter(group -> group.size() > 1)
+                    .flatMap(group -> ConflictSweepLine.findConflicts(
+                            group, AppointmentTimeIndex.Booking::getAppointmentTime, minInterval).stream())
+                    .map(conflict -> toRow(conflict, ownerOf, type, date))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("冲突审计被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("冲突审计失败", e.getCause());
+        }
+    }
+
+    private static Object[] toRow(ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking> conflict,
+                                  Function<AppointmentTimeIndex.Booking, Long> ownerOf, String type, LocalDate date) {
+        AppointmentTimeIndex.Booking first = conflict.getFirst();
+        AppointmentTimeIndex.Booking second = conflict.getSecond();
+        return new Object[]{
+                Date.valueOf(date), type, ownerOf.apply(first),
+                first.getAppointmentId(), second.getAppointmentId(),
+                Timestamp.valueOf(first.getAppointmentTime()), Timestamp.valueOf(second.getAppointmentTime()),
+                conflict.getMinutesApart()
+        };
+    }
+
+    private void insert(List<Object[]> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO appointment_conflict_reports (audit_date, conflict_type, owner_id, appointment_id, " +
+                "conflicting_appointment_id, appointment_time, conflicting_time, minutes_apart, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows, INSERT_BATCH_SIZE, (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                    ps.setTimestamp(row.length + 1, now);
+                });
+    }
+
+    private static Map<String, Object> skipped(String reason) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("skipped", true);
+        result.put("reason", reason);
+        return result;
+    }
+}
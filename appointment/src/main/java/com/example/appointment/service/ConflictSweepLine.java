@@ -0,0 +1,80 @@
+package com.example.appointment.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 扫描线冲突检测
+ * 将一组预约按时间排序一次，再用滑动窗口从前往后扫描：窗口内只保留与当前预约间隔不足最小间隔的预约，
+ * 当前预约与窗口内每条预约各构成一个冲突对。总耗时 O(n log n + k)，k 为冲突对数，替代逐对比较的 O(n²)
+ */
+public final class ConflictSweepLine {
+
+    private ConflictSweepLine() {
+    }
+
+    /**
+     * 找出间隔小于 minIntervalMinutes 分钟的全部预约对
+     * @param items 同一患者或同一医生的预约，无需预先排序
+     * @param timeOf 取预约时间
+     * @return 冲突对，按较晚一条的时间升序；每对中 first 不晚于 second
+     */
+    public static <T> List<Conflict<T>> findConflicts(List<T> items, Function<T, LocalDateTime> timeOf,
+                                                      long minIntervalMinutes) {
+        List<Conflict<T>> conflicts = new ArrayList<>();
+        if (items.size() < 2) {
+            return conflicts;
+        }
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(timeOf));
+
+        Deque<T> window = new ArrayDeque<>();
+        for (T current : sorted) {
+            LocalDateTime time = timeOf.apply(current);
+            // 与“间隔小于N分钟”的语义一致：间隔恰好N分钟的预约移出窗口
+            LocalDateTime cutoff = time.minusMinutes(minIntervalMinutes);
+            while (!window.isEmpty() && !timeOf.apply(window.peekFirst()).isAfter(cutoff)) {
+                window.pollFirst();
+            }
+            for (T earlier : window) {
+                conflicts.add(new Conflict<>(earlier, current,
+                        ChronoUnit.MINUTES.between(timeOf.apply(earlier), time)));
+            }
+            window.addLast(current);
+        }
+        return conflicts;
+    }
+
+    /**
+     * 一对时间冲突的预约
+     */
+    public static class Conflict<T> {
+        private final T first;
+        private final T second;
+        private final long minutesApart;
+
+        Conflict(T first, T second, long minutesApart) {
+            this.first = first;
+            this.second = second;
+            this.minutesApart = minutesApart;
+        }
+
+        public T getFirst() {
+            return first;
+        }
+
+        public T getSecond() {
+            return second;
+        }
+
+        public long getMinutesApart() {
+            return minutesApart;
+        }
+    }
+}
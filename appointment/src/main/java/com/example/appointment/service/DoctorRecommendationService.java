@@ -6,14 +6,12 @@ import com.example.appointment.entity.Doctor;
 import com.example.appointment.entity.User;
 import com.example.appointment.entity.Appointment;
 import com.example.appointment.repository.DoctorRepository;
-import com.example.appointment.repository.DoctorReviewRepository;
 import com.example.appointment.repository.AppointmentRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,8 +22,8 @@ public class DoctorRecommendationService {
     private static final Logger log = LoggerFactory.getLogger(DoctorRecommendationService.class);
     
     private final DoctorRepository doctorRepository;
-    private final DoctorReviewRepository doctorReviewRepository;
     private final AppointmentRepository appointmentRepository;
+    private final DoctorStatsService doctorStatsService;
     
     /**
      * 基于患者历史记录和偏好推荐医生
@@ -36,9 +34,12 @@ public class DoctorRecommendationService {
         // 获取科室内的医生
         List<Doctor> doctors = doctorRepository.findByDepartmentCode(departmentCode);
         
+        // 一次查出患者在各医生处的就诊次数
+        Map<Long, Long> patientHistory = getPatientAppointmentCounts(patientId);
+        
         // 计算每个医生的推荐分数
         List<DoctorRecommendationDTO> recommendations = doctors.stream()
-                .map(doctor -> calculateDoctorScore(doctor, patientId, symptom))
+                .map(doctor -> calculateDoctorScore(doctor, patientHistory, symptom))
                 .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
                 .limit(5) // 返回前5个推荐
                 .collect(Collectors.toList());
@@ -53,14 +54,14 @@ public class DoctorRecommendationService {
     public List<DoctorRecommendationDTO> recommendTopRatedDoctors(String departmentCode, int limit) {
         log.info("推荐高评分医生: departmentCode={}, limit={}", departmentCode, limit);
         
-        // 获取科室内的医生及其平均评分
-        List<Object[]> doctorRatings = doctorReviewRepository.getAverageRatingByDepartment(departmentCode);
+        // 获取科室内的医生，评分统计直接读取预聚合数据
+        List<Doctor> doctors = doctorRepository.findByDepartmentCode(departmentCode);
         
-        return doctorRatings.stream()
-                .map(result -> {
-                    Doctor doctor = (Doctor) result[0];
-                    Double avgRating = (Double) result[1];
-                    Long reviewCount = (Long) result[2];
+        return doctors.stream()
+                .filter(doctor -> doctorStatsService.getReviewCount(doctor.getId()) > 0)
+                .map(doctor -> {
+                    double avgRating = getDoctorAverageRating(doctor.getId());
+                    long reviewCount = getDoctorReviewCount(doctor.getId());
                     
                     DoctorRecommendationDTO recommendation = new DoctorRecommendationDTO();
                     recommendation.setDoctorId(doctor.getId());
@@ -161,7 +162,7 @@ public class DoctorRecommendationService {
                 .collect(Collectors.toList());
     }
     
-    private DoctorRecommendationDTO calculateDoctorScore(Doctor doctor, Long patientId, String symptom) {
+    private DoctorRecommendationDTO calculateDoctorScore(Doctor doctor, Map<Long, Long> patientHistory, String symptom) {
         DoctorRecommendationDTO recommendation = new DoctorRecommendationDTO();
         recommendation.setDoctorId(doctor.getId());
         recommendation.setDoctorName(doctor.getName());
@@ -174,7 +175,7 @@ public class DoctorRecommendationService {
         double availabilityScore = getDoctorAvailabilityScore(doctor.getId());
         double experienceScore = getDoctorExperienceScore(doctor);
         double symptomMatchScore = calculateSymptomMatchScore(doctor, symptom);
-        double patientHistoryScore = getPatientHistoryScore(doctor.getId(), patientId);
+        double patientHistoryScore = getPatientHistoryScore(doctor.getId(), patientHistory);
         
         // 综合分数
         double totalScore = ratingScore * 0.3 + availabilityScore * 0.25 + 
@@ -194,8 +195,8 @@ public class DoctorRecommendationService {
     }
     
     private double getDoctorRatingScore(Long doctorId) {
-        Double avgRating = doctorReviewRepository.getAverageRatingByDoctorId(doctorId);
-        Long reviewCount = doctorReviewRepository.countByDoctorIdAndStatus(doctorId, "APPROVED");
+        Double avgRating = doctorStatsService.getAverageRating(doctorId);
+        long reviewCount = doctorStatsService.getReviewCount(doctorId);
         
         if (avgRating == null || reviewCount == 0) {
             return 0.5; // 默认分数
@@ -211,7 +212,7 @@ public class DoctorRecommendationService {
     private double getDoctorAvailabilityScore(Long doctorId) {
         // 这里可以查询医生的排班和预约情况
         // 简化处理：返回一个基于历史数据的可用性分数
-        long upcomingAppointments = appointmentRepository.countUpcomingAppointmentsByDoctor(doctorId, LocalDateTime.now());
+        long upcomingAppointments = doctorStatsService.getUpcomingAppointmentCount(doctorId);
         
         // 假设医生每天最多看20个病人
         double availability = Math.max(0, 1.0 - (upcomingAppointments / 20.0));
@@ -266,9 +267,20 @@ public class DoctorRecommendationService {
         return 0.6; // 默认匹配分数
     }
     
-    private double getPatientHistoryScore(Long doctorId, Long patientId) {
+    private Map<Long, Long> getPatientAppointmentCounts(Long patientId) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (patientId == null) {
+            return counts;
+        }
+        for (Object[] row : appointmentRepository.countByPatientIdGroupByDoctor(patientId)) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+    
+    private double getPatientHistoryScore(Long doctorId, Map<Long, Long> patientHistory) {
         // 检查患者是否之前看过这个医生
-        long previousAppointments = appointmentRepository.countByPatientIdAndDoctorId(patientId, doctorId);
+        long previousAppointments = patientHistory.getOrDefault(doctorId, 0L);
         
         if (previousAppointments > 0) {
             return 0.8; // 有历史记录，分数较高
@@ -278,12 +290,12 @@ public class DoctorRecommendationService {
     }
     
     private double getDoctorAverageRating(Long doctorId) {
-        Double avgRating = doctorReviewRepository.getAverageRatingByDoctorId(doctorId);
+        Double avgRating = doctorStatsService.getAverageRating(doctorId);
         return avgRating != null ? avgRating : 0.0;
     }
     
     private long getDoctorReviewCount(Long doctorId) {
-        return doctorReviewRepository.countByDoctorIdAndStatus(doctorId, "APPROVED");
+        return doctorStatsService.getReviewCount(doctorId);
     }
     
     private Set<Long> findSimilarPatients(Long patientId, List<Appointment> patientAppointments) {
@@ -24,11 +24,11 @@ public interface DoctorScheduleService {
     // 获取科室某天的排班
     List<DoctorScheduleDTO> getDepartmentSchedules(Long departmentId, LocalDate date);
     
-    // 获取医生未来的排班
-    List<DoctorScheduleDTO> getFutureSchedulesByDoctor(Long doctorId);
+    // 获取医生未来的排班（按日期升序，最多limit条）
+    List<DoctorScheduleDTO> getFutureSchedulesByDoctor(Long doctorId, int limit);
     
-    // 获取科室未来的排班
-    List<DoctorScheduleDTO> getFutureSchedulesByDepartment(Long departmentId);
+    // 获取科室未来的排班（按日期升序，最多limit条）
+    List<DoctorScheduleDTO> getFutureSchedulesByDepartment(Long departmentId, int limit);
     
     // 更新可用预约数
     void updateAvailableAppointments(Long scheduleId, int change);
@@ -0,0 +1,150 @@
+package com.example.appointment.service;
+
+import com.example.appointment.repository.DoctorReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 医生统计数据
+ * 在内存中维护每位医生已审核评价的评分总和、数量和分布，评价审核通过、拒绝、删除时在事务提交后增量更新；
+ * 待就诊预约数取自预约时间索引中随预约变更增量维护的计数。推荐打分和评价统计均按医生ID在O(1)内读取，无需聚合查询。
+ * 统计只随本节点的变更实时更新，定时按数据库重新汇总，其他节点的审核结果最多延迟一个同步间隔
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorStatsService implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorStatsService.class);
+
+    private static final RatingStats EMPTY = new RatingStats(0, 0, Collections.emptyMap());
+
+    private final DoctorReviewRepository doctorReviewRepository;
+    private final AppointmentTimeIndex appointmentTimeIndex;
+
+    /**
+     * 医生ID -> 评分统计（不可变快照，更新时整体替换）
+     */
+    private final Map<Long, RatingStats> ratings = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时按医生、评分汇总已审核的评价
+     */
+    @Override
+    public void run(String... args) {
+        resync();
+        log.info("医生评分统计预热完成，共 {} 位医生", ratings.size());
+    }
+
+    /**
+     * 按数据库重新汇总评分统计，纠正其他节点审核评价造成的偏差
+     */
+    @Scheduled(initialDelayString = "${appointment.doctor-stats.resync-interval-ms:300000}",
+            fixedDelayString = "${appointment.doctor-stats.resync-interval-ms:300000}")
+    public synchronized void resync() {
+        Map<Long, RatingStats> rebuilt = new HashMap<>();
+        for (Object[] row : doctorReviewRepository.getApprovedRatingDistribution()) {
+            Long doctorId = ((Number) row[0]).longValue();
+            int rating = ((Number) row[1]).intValue();
+            long count = ((Number) row[2]).longValue();
+            rebuilt.compute(doctorId, (id, stats) -> (stats != null ? stats : EMPTY).add(rating, count));
+        }
+        rebuilt.forEach(ratings::put);
+        ratings.keySet().retainAll(rebuilt.keySet());
+    }
+
+    /**
+     * 评价状态变化后调用，事务提交后更新统计
+     * @param oldStatus 变更前状态，新建评价传null
+     * @param newStatus 变更后状态，删除评价传null
+     */
+    public void onReviewStatusChanged(Long doctorId, Integer rating, String oldStatus, String newStatus) {
+        boolean wasApproved = "APPROVED".equals(oldStatus);
+        boolean isApproved = "APPROVED".equals(newStatus);
+        if (wasApproved == isApproved || rating == null) {
+            return;
+        }
+        long delta = isApproved ? 1 : -1;
+
+        Runnable update = () -> ratings.compute(doctorId,
+                (id, stats) -> (stats != null ? stats : EMPTY).add(rating, delta));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * 已审核评价数
+     */
+    public long getReviewCount(Long doctorId) {
+        return getRatingStats(doctorId).count;
+    }
+
+    /**
+     * 平均评分，没有评价时返回null
+     */
+    public Double getAverageRating(Long doctorId) {
+        RatingStats stats = getRatingStats(doctorId);
+        return stats.count > 0 ? (double) stats.sum / stats.count : null;
+    }
+
+    /**
+     * 评分分布：评分 -> 评价数
+     */
+    public Map<Integer, Long> getRatingDistribution(Long doctorId) {
+        return getRatingStats(doctorId).distribution;
+    }
+
+    /**
+     * 医生当前待就诊（待确认、已确认）的预约数，今天已过时间但未就诊的预约也计入
+     */
+    public long getUpcomingAppointmentCount(Long doctorId) {
+        return appointmentTimeIndex.countDoctorUpcomingBookings(doctorId);
+    }
+
+    private RatingStats getRatingStats(Long doctorId) {
+        return ratings.getOrDefault(doctorId, EMPTY);
+    }
+
+    private static class RatingStats {
+        private final long sum;
+        private final long count;
+        private final Map<Integer, Long> distribution;
+
+        RatingStats(long sum, long count, Map<Integer, Long> distribution) {
+            this.sum = sum;
+            this.count = count;
+            this.distribution = distribution;
+        }
+
+        RatingStats add(int rating, long delta) {
+            Map<Integer, Long> next = new TreeMap<>(distribution);
+            long ratingCount = next.getOrDefault(rating, 0L) + delta;
+            if (ratingCount > 0) {
+                next.put(rating, ratingCount);
+            } else {
+                next.remove(rating);
+            }
+            return new RatingStats(sum + rating * delta, Math.max(0, count + delta), Collections.unmodifiableMap(next));
+        }
+    }
+}
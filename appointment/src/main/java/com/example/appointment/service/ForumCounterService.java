@@ -0,0 +1,181 @@
+package com.example.appointment.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 论坛计数服务
+ * 帖子浏览数、帖子点赞数、评论点赞数的增量先累加在内存中（按ID分散的LongAdder），
+ * 定时批量写回数据库，避免热门帖子的每次点赞、浏览都去争抢同一行的行锁。
+ * 读取时将尚未写回的增量合并到数据库值上，用户可以立即看到自己的点赞
+ */
+@Service
+@RequiredArgsConstructor
+public class ForumCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ForumCounterService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter postViews = new Counter("UPDATE posts SET views = views + ? WHERE id = ?");
+    private final Counter postLikes = new Counter("UPDATE posts SET likes = likes + ? WHERE id = ?");
+    private final Counter commentLikes = new Counter("UPDATE post_comments SET likes = likes + ? WHERE id = ?");
+
+    public void incrementPostViews(Long postId) {
+        postViews.add(postId, 1);
+    }
+
+    public void incrementPostLikes(Long postId) {
+        postLikes.add(postId, 1);
+    }
+
+    public void decrementPostLikes(Long postId) {
+        postLikes.add(postId, -1);
+    }
+
+    public void incrementCommentLikes(Long commentId) {
+        commentLikes.add(commentId, 1);
+    }
+
+    /**
+     * 尚未写回数据库的帖子浏览数增量
+     */
+    public long getPendingPostViews(Long postId) {
+        return postViews.pending(postId);
+    }
+
+    /**
+     * 尚未写回数据库的帖子点赞数增量
+     */
+    public long getPendingPostLikes(Long postId) {
+        return postLikes.pending(postId);
+    }
+
+    /**
+     * 尚未写回数据库的评论点赞数增量
+     */
+    public long getPendingCommentLikes(Long commentId) {
+        return commentLikes.pending(commentId);
+    }
+
+    /**
+     * 定时将累积的增量批量写回数据库
+     */
+    @Scheduled(fixedDelayString = "${appointment.forum.counter-flush-interval-ms:5000}")
+    public void flush() {
+        postViews.flush();
+        postLikes.flush();
+        commentLikes.flush();
+    }
+
+    /**
+     * 应用关闭前写回剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        log.info("论坛计数已在关闭前写回数据库");
+    }
+
+    private class Counter {
+        private final String updateSql;
+        private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+        // 已从pending取出、正在写库的增量，写库完成前仍计入读取结果
+        private final Map<Long, Long> flushing = new ConcurrentHashMap<>();
+
+        Counter(String updateSql) {
+            this.updateSql = updateSql;
+        }
+
+        void add(Long id, long delta) {
+            LongAdder adder = pending.computeIfAbsent(id, k -> new LongAdder());
+            adder.add(delta);
+            // 计数器在累加前恰好被写回清理移除时，把落在已移除计数器上的增量转回map中
+            if (pending.get(id) != adder) {
+                long orphaned = adder.sumThenReset();
+                if (orphaned != 0) {
+                    add(id, orphaned);
+                }
+            }
+        }
+
+        long pending(Long id) {
+            LongAdder adder = pending.get(id);
+            return (adder != null ? adder.sum() : 0) + flushing.getOrDefault(id, 0L);
+        }
+
+        synchronized void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // 按ID排序写库，多实例同时写回时加锁顺序一致，避免死锁
+            Map<Long, Long> deltas = new TreeMap<>();
+            for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    flushing.merge(entry.getKey(), delta, Long::sum);
+                    deltas.put(entry.getKey(), delta);
+                }
+            }
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+
+            // 移除写回后没有新增量的计数器，避免map随访问过的ID无限增长
+            for (Long id : new ArrayList<>(pending.keySet())) {
+                pending.computeIfPresent(id, (k, adder) -> adder.sum() == 0 ? null : adder);
+            }
+        }
+
+        private void write(Map<Long, Long> deltas) {
+            List<Long> ids = new ArrayList<>(deltas.keySet());
+            List<Object[]> batchArgs = new ArrayList<>(ids.size());
+            ids.forEach(id -> batchArgs.add(new Object[]{deltas.get(id), id}));
+            try {
+                jdbcTemplate.batchUpdate(updateSql, batchArgs);
+            } catch (Exception e) {
+                // 只把未执行成功的增量放回，等待下次写回；驱动已执行的语句不能重复累加
+                int[] updateCounts = findUpdateCounts(e);
+                int retried = 0;
+                for (int i = 0; i < ids.size(); i++) {
+                    boolean failed = updateCounts == null || i >= updateCounts.length
+                            || updateCounts[i] == Statement.EXECUTE_FAILED;
+                    if (failed) {
+                        add(ids.get(i), deltas.get(ids.get(i)));
+                        retried++;
+                    }
+                }
+                log.error("论坛计数写回失败，{} 条增量将在下次重试: {}", retried, e.getMessage());
+            } finally {
+                ids.forEach(flushing::remove);
+            }
+        }
+    }
+
+    /**
+     * 取出批量执行异常中各语句的执行结果，无法确定时返回null（按全部失败处理）
+     */
+    private static int[] findUpdateCounts(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException) {
+                return ((BatchUpdateException) cause).getUpdateCounts();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.appointment.service;
+
+import com.example.appointment.common.Result;
+import com.example.appointment.entity.IdempotencyRecord;
+import com.example.appointment.exception.BusinessException;
+import com.example.appointment.exception.IdempotencyKeyMismatchException;
+import com.example.appointment.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 幂等请求服务
+ * 成功响应按幂等键缓存在内存中（有容量上限和TTL），同时写入 idempotency_records 表供其他节点重放；
+ * 同一节点上并发的重复请求等待首个请求的结果，不重复执行。执行失败的请求不保存，客户端可用同一幂等键重试。
+ * 请求在事务中执行，成功响应与业务数据在同一事务中提交，不会出现业务已提交而幂等记录仍为处理中、超时后被重复执行的情况。
+ * 同一幂等键只能用于内容相同的请求，内容不同时抛出 IdempotencyKeyMismatchException
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${appointment.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${appointment.idempotency.max-size:10000}")
+    private int maxSize;
+
+    @Value("${appointment.idempotency.processing-timeout-seconds:60}")
+    private long processingTimeoutSeconds;
+
+    /**
+     * 幂等键摘要 -> 已完成的响应
+     */
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 幂等键摘要 -> 正在执行的请求
+     */
+    private final Map<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 被幂等保护的调用
+     */
+    @FunctionalInterface
+    public interface Invocation {
+        Object proceed() throws Throwable;
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 按幂等键执行调用
+     * @param key 已包含用户和接口范围的幂等键
+     * @param requestBody 请求内容，同一幂等键的重复请求内容必须一致
+     * @param returnType 接口返回类型，用于从数据库记录还原响应
+     * @throws IdempotencyKeyMismatchException 幂等键已被内容不同的请求使用
+     */
+    public Object execute(String key, String requestBody, Type returnType, Invocation invocation) throws Throwable {
+        String digest = digest(key);
+        String requestHash = digest(requestBody);
+        Object cached = getCached(digest, requestHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        InFlightRequest current = new InFlightRequest(requestHash);
+        InFlightRequest existing = inFlight.putIfAbsent(digest, current);
+        if (existing != null) {
+            checkRequestHash(existing.requestHash, requestHash);
+            return await(existing.future);
+        }
+        try {
+            Object response = executeOnce(digest, requestHash, returnType, invocation);
+            current.future.complete(response);
+            return response;
+        } catch (Throwable t) {
+            current.future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(digest, current);
+        }
+    }
+
+    /**
+     * 定时清理数据库中的过期记录和内存中的过期响应
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void cleanupExpired() {
+        long now = System.currentTimeMillis();
+        cache.entrySet().removeIf(entry -> entry.getValue().expireAt <= now);
+        int deleted = recordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("已清理 {} 条过期的幂等请求记录", deleted);
+        }
+    }
+
+    private Object executeOnce(String digest, String requestHash, Type returnType, Invocation invocation) throws Throwable {
+        // 可能刚有同键请求完成
+        Object cached = getCached(digest, requestHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (recordRepository.tryClaim(digest, requestHash, now.plusSeconds(processingTimeoutSeconds)) == 0) {
+            IdempotencyRecord record = recordRepository.findById(digest).orElse(null);
+            if (record != null && record.getExpiresAt().isAfter(now)) {
+                checkRequestHash(record.getRequestHash(), requestHash);
+                if (IdempotencyRecord.STATUS_COMPLETED.equals(record.getStatus())) {
+                    Object response = deserialize(record.getResponseBody(), returnType);
+                    putCached(digest, requestHash, response);
+                    return response;
+                }
+                throw new BusinessException("相同请求正在处理中，请稍后重试");
+            }
+            // 记录已过期（如处理节点异常退出，其事务连同业务数据已回滚），清除后重新占用
+            recordRepository.releaseIfExpired(digest, now);
+            if (recordRepository.tryClaim(digest, requestHash, now.plusSeconds(processingTimeoutSeconds)) == 0) {
+                throw new BusinessException("相同请求正在处理中，请稍后重试");
+            }
+        }
+
+        Object response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                Object result = proceed(invocation);
+                if (isSuccessful(result)) {
+                    recordRepository.complete(digest, serialize(result), LocalDateTime.now().plusSeconds(ttlSeconds));
+                } else {
+                    // 失败响应不保存，其间的写入一并回滚
+                    status.setRollbackOnly();
+                }
+                return result;
+            });
+        } catch (InvocationException e) {
+            recordRepository.release(digest);
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            recordRepository.release(digest);
+            throw e;
+        }
+
+        if (isSuccessful(response)) {
+            putCached(digest, requestHash, response);
+        } else {
+            recordRepository.release(digest);
+        }
+        return response;
+    }
+
+    private static Object proceed(Invocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationException(t);
+        }
+    }
+
+    private static void checkRequestHash(String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key 已用于内容不同的请求，请更换幂等键");
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            return future.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new BusinessException("相同请求正在处理中，请稍后重试");
+        }
+    }
+
+    private Object getCached(String digest, String requestHash) {
+        CachedResponse cached = cache.get(digest);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expireAt <= System.currentTimeMillis()) {
+            cache.remove(digest, cached);
+            return null;
+        }
+        checkRequestHash(cached.requestHash, requestHash);
+        return cached.response;
+    }
+
+    private void putCached(String digest, String requestHash, Object response) {
+        if (cache.size() >= maxSize) {
+            evict();
+        }
+        cache.put(digest, new CachedResponse(requestHash, response, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+
+    /**
+     * 容量已满时先清理过期条目，仍然不足则淘汰部分条目（数据库中仍保留，可回源）
+     */
+    private synchronized void evict() {
+        if (cache.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        cache.entrySet().removeIf(entry -> entry.getValue().expireAt <= now);
+
+        int target = maxSize * 9 / 10;
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static boolean isSuccessful(Object response) {
+        if (response instanceof Result) {
+            Integer code = ((Result<?>) response).getCode();
+            return code != null && code == 200;
+        }
+        if (response instanceof ResponseEntity) {
+            return ((ResponseEntity<?>) response).getStatusCode().is2xxSuccessful();
+        }
+        return true;
+    }
+
+    /**
+     * ResponseEntity 保存状态码和响应体，其他返回值直接保存为响应体
+     */
+    private String serialize(Object response) {
+        ObjectNode node = objectMapper.createObjectNode();
+        if (response instanceof ResponseEntity) {
+            ResponseEntity<?> entity = (ResponseEntity<?>) response;
+            node.put("status", entity.getStatusCode().value());
+            node.set("body", objectMapper.valueToTree(entity.getBody()));
+        } else {
+            node.set("body", objectMapper.valueToTree(response));
+        }
+        return node.toString();
+    }
+
+    private Object deserialize(String json, Type returnType) throws Exception {
+        JsonNode node = objectMapper.readTree(json);
+        JavaType type = objectMapper.getTypeFactory().constructType(returnType);
+        if (ResponseEntity.class.isAssignableFrom(type.getRawClass())) {
+            JavaType bodyType = type.containedTypeOrUnknown(0);
+            Object body = objectMapper.convertValue(node.get("body"), bodyType);
+            return ResponseEntity.status(node.get("status").asInt()).body(body);
+        }
+        return objectMapper.convertValue(node.get("body"), type);
+    }
+
+    private static String digest(String key) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static class CachedResponse {
+        private final String requestHash;
+        private final Object response;
+        private final long expireAt;
+
+        CachedResponse(String requestHash, Object response, long expireAt) {
+            this.requestHash = requestHash;
+            this.response = response;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static class InFlightRequest {
+        private final String requestHash;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        InFlightRequest(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    /**
+     * 在事务回调中传递被调用方法抛出的受检异常
+     */
+    private static class InvocationException extends RuntimeException {
+        InvocationException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.appointment.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 基于 MySQL 命名锁（GET_LOCK/RELEASE_LOCK）的定时任务选主
+ * 多实例部署时同名任务同一时刻只在一个节点上运行，拿不到锁的节点直接跳过本次运行。
+ * 命名锁属于数据库会话，必须在同一个连接上加锁、释放，因此运行期间会单独占用一个连接池连接；
+ * 任务本身通过 JPA、JdbcTemplate、TransactionTemplate 访问数据库，使用的是连接池中的其他连接，
+ * 即每个正在运行的任务同时占用两个连接，配置连接池大小时需要把这部分计算在内
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderLockService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 持有命名锁执行任务
+     * @param lockName 锁名，同名任务互斥
+     * @return 任务结果；其他节点正持有该锁时不执行任务，返回空
+     */
+    public <T> Optional<T> runAsLeader(String lockName, Supplier<T> task) {
+        return jdbcTemplate.execute((ConnectionCallback<Optional<T>>) connection -> {
+            if (!tryLock(connection, lockName)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.ofNullable(task.get());
+            } finally {
+                try (PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    ps.setString(1, lockName);
+                    ps.execute();
+                }
+            }
+        });
+    }
+
+    private static boolean tryLock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            ps.setString(1, lockName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+}
@@ -38,11 +38,42 @@ public class OneStepAppointmentService {
     private UserRepository userRepository;
     
     @Autowired
-    private DoctorScheduleRepository doctorScheduleRepository;
+    private TimeSlotUtil timeSlotUtil;
     
     @Autowired
-    private TimeSlotUtil timeSlotUtil;
+    private AppointmentTimeIndex appointmentTimeIndex;
+
+    @Autowired
+    private AvailabilityGridService availabilityGridService;
+
+    @Autowired
+    private AppointmentNumberGenerator appointmentNumberGenerator;
+
+    @Autowired
+    private AppointmentOutboxService appointmentOutboxService;
+
+    @Autowired
+    private SlotInventoryService slotInventoryService;
     
+    /**
+     * 一键预约的目标科室：请求指定的科室，未指定时取症状分析推荐的第一个科室
+     * @return 科室ID，未指定科室且无法根据症状匹配时返回null
+     */
+    public Long resolveDepartmentId(OneStepAppointmentRequest request) {
+        if (request.getDepartmentId() != null) {
+            return request.getDepartmentId();
+        }
+        if (request.getSymptoms() == null || request.getSymptoms().trim().isEmpty()) {
+            return null;
+        }
+        List<Map<String, Object>> recommendations = symptomAnalysisService.analyzeSymptomsAndRecommendDepartments(request.getSymptoms());
+        return recommendations.isEmpty() ? null : recommendedDepartmentId(recommendations);
+    }
+
+    private static Long recommendedDepartmentId(List<Map<String, Object>> recommendations) {
+        return Long.valueOf(recommendations.get(0).get("departmentId").toString());
+    }
+
     /**
      * 一键预约核心服务
      */
@@ -56,10 +87,8 @@ public class OneStepAppointmentService {
         }
         
         // 2. 选择最佳推荐科室（如果没有指定，使用AI推荐）
-        Long departmentId = request.getDepartmentId();
-        if (departmentId == null) {
-            departmentId = Long.valueOf(recommendations.get(0).get("departmentId").toString());
-        }
+        Long departmentId = request.getDepartmentId() != null
+                ? request.getDepartmentId() : recommendedDepartmentId(recommendations);
         
         Department department = departmentRepository.findById(departmentId)
                 .orElseThrow(() -> new RuntimeException("科室不存在"));
@@ -67,11 +96,12 @@ public class OneStepAppointmentService {
         // 3. 智能选择医生
         Doctor selectedDoctor = selectBestDoctor(departmentId, request.getAppointmentTime());
         
-        // 4. 验证时间段可用性
+        // 4. 按与普通预约相同的排班时段和号源规则占用号源
         LocalDateTime appointmentTime = request.getAppointmentTime();
         String timeSlot = timeSlotUtil.getTimeSlot(appointmentTime);
         
-        if (!isTimeSlotAvailable(selectedDoctor.getId(), appointmentTime, timeSlot)) {
+        Long scheduleId = resolveScheduleId(selectedDoctor.getId(), appointmentTime);
+        if (scheduleId == null || !slotInventoryService.tryReserve(scheduleId)) {
             throw new RuntimeException("所选时间段已满，请选择其他时间");
         }
         
@@ -92,10 +122,12 @@ public class OneStepAppointmentService {
         appointment.setUpdatedAt(LocalDateTime.now());
         
         // 生成预约号
-        String appointmentNumber = generateAppointmentNumber();
+        String appointmentNumber = appointmentNumberGenerator.next();
         appointment.setAppointmentNumber(appointmentNumber);
         
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        appointmentTimeIndex.onAppointmentChanged(savedAppointment);
+        appointmentOutboxService.publish(savedAppointment.getId(), AppointmentEvent.TYPE_CREATED);
         
         // 7. 构建响应
         return buildOneStepResponse(savedAppointment, department, selectedDoctor, recommendations.get(0));
@@ -133,14 +165,16 @@ public class OneStepAppointmentService {
     }
     
     /**
-     * 检查医生是否有排班
+     * 检查医生在该时间对应的排班时段是否出诊且仍有号源
      */
     private boolean hasSchedule(Long doctorId, LocalDateTime appointmentTime) {
-        LocalDate scheduleDate = appointmentTime.toLocalDate();
-        String timeSlot = timeSlotUtil.getTimeSlot(appointmentTime);
-        
-        return doctorScheduleRepository.checkDoctorScheduleAvailability(
-                doctorId, scheduleDate, timeSlot, 1);
+        Long scheduleId = resolveScheduleId(doctorId, appointmentTime);
+        return scheduleId != null && slotInventoryService.hasCapacity(scheduleId);
+    }
+
+    private Long resolveScheduleId(Long doctorId, LocalDateTime appointmentTime) {
+        return slotInventoryService.resolveScheduleId(doctorId, appointmentTime.toLocalDate(),
+                TimeSlotUtil.resolveSchedulePeriod(appointmentTime));
     }
     
     /**
@@ -155,33 +189,6 @@ public class OneStepAppointmentService {
         return (int) count;
     }
     
-    /**
-     * 检查时间段是否可用
-     */
-    private boolean isTimeSlotAvailable(Long doctorId, LocalDateTime appointmentTime, String timeSlot) {
-        // 获取医生在该时间段的预约数量
-        LocalDate date = appointmentTime.toLocalDate();
-        long count = appointmentRepository.countDoctorAppointmentsInTimeRangeWithStatus(
-                doctorId,
-                date.atStartOfDay(),
-                date.plusDays(1).atStartOfDay(),
-                Arrays.asList("PENDING", "CONFIRMED"));
-        
-        // 获取医生在该时间段的最大预约数（假设每个时间段最多4个预约）
-        int maxAppointmentsPerSlot = 4;
-        
-        return (int)count < maxAppointmentsPerSlot;
-    }
-    
-    /**
-     * 生成预约号
-     */
-    private String generateAppointmentNumber() {
-        String datePrefix = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomSuffix = String.format("%04d", new Random().nextInt(10000));
-        return "A" + datePrefix + randomSuffix;
-    }
-    
     /**
      * 获取当前患者（模拟）
      */
@@ -250,28 +257,27 @@ public class OneStepAppointmentService {
         response.setDate(date);
         response.setPeriod(period);
         
-        // 生成时间段
+        // 生成时间段：号源按时段（上午/下午）排班，时段内各半小时共享同一剩余号源
         List<TimeSlotAvailabilityResponse.TimeSlot> timeSlots = new ArrayList<>();
         
+        int startHour;
         if ("MORNING".equals(period)) {
-            // 上午时间段
-            for (int hour = 9; hour <= 11; hour++) {
-                for (int minute = 0; minute < 60; minute += 30) {
-                    String time = String.format("%02d:%02d", hour, minute);
-                    int available = calculateAvailableSlots(departmentId, date, time);
-                    timeSlots.add(new TimeSlotAvailabilityResponse.TimeSlot(time, available));
-                }
-            }
+            startHour = 9;
         } else if ("AFTERNOON".equals(period)) {
-            // 下午时间段
-            for (int hour = 14; hour <= 16; hour++) {
-                for (int minute = 0; minute < 60; minute += 30) {
-                    String time = String.format("%02d:%02d", hour, minute);
-                    int available = calculateAvailableSlots(departmentId, date, time);
-                    timeSlots.add(new TimeSlotAvailabilityResponse.TimeSlot(time, available));
-                }
+            startHour = 14;
+        } else {
+            response.setTimeSlots(timeSlots);
+            return response;
+        }
+        
+        int available = availabilityGridService.getRemaining(departmentId, date, period);
+        for (int hour = startHour; hour <= startHour + 2; hour++) {
+            for (int minute = 0; minute < 60; minute += 30) {
+                String time = String.format("%02d:%02d", hour, minute);
+                timeSlots.add(new TimeSlotAvailabilityResponse.TimeSlot(time, available));
             }
         }
+        response.setTotalAvailableSlots(available);
         
         response.setTimeSlots(timeSlots);
         return response;
@@ -303,26 +309,4 @@ public class OneStepAppointmentService {
             return false;
         }
     }
-    
-    /**
-     * 计算时间段可用数量
-     */
-    private int calculateAvailableSlots(Long departmentId, LocalDate date, String time) {
-        // 获取科室下所有医生
-        List<Doctor> doctors = doctorRepository.findByDepartmentId(departmentId);
-        
-        int totalAvailable = 0;
-        for (Doctor doctor : doctors) {
-            // 检查医生是否有排班
-            if (hasSchedule(doctor.getId(), date.atTime(java.time.LocalTime.parse(time)))) {
-                // 检查时间段是否可用（假设每个医生每个时间段最多4个预约）
-                int appointmentCount = getAppointmentCount(doctor.getId(), date);
-                int maxPerDoctor = 4;
-                int availableForDoctor = Math.max(0, maxPerDoctor - appointmentCount);
-                totalAvailable += availableForDoctor;
-            }
-        }
-        
-        return totalAvailable;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+package com.example.appointment.service;
+
+import com.example.appointment.entity.Post;
+import com.example.appointment.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 帖子全文检索索引
+ * 对标题、内容、标签建立内存倒排索引，中文按相邻两字切分（bigram）并收录单字，英文和数字按整词切分，
+ * 检索时要求命中全部查询词，按BM25相关度排序；帖子增删改在事务提交后增量更新索引
+ */
+@Service
+@RequiredArgsConstructor
+public class PostSearchIndex implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    // BM25参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 字段权重：标题命中比正文命中更相关
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double TAG_WEIGHT = 1.5;
+    private static final double CONTENT_WEIGHT = 1.0;
+
+    private final PostRepository postRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 词项 -> (帖子ID -> 加权词频)
+     */
+    private final Map<String, Map<Long, Double>> postings = new HashMap<>();
+
+    /**
+     * 帖子ID -> 文档信息
+     */
+    private final Map<Long, Doc> docs = new HashMap<>();
+
+    private double totalLength;
+
+    /**
+     * 启动时为全部帖子建立索引
+     */
+    @Override
+    public void run(String... args) {
+        List<Post> posts = postRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            posts.forEach(this::doIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("帖子检索索引构建完成，共 {} 篇帖子，{} 个词项", posts.size(), postings.size());
+    }
+
+    /**
+     * 帖子创建或修改后调用，事务提交后再更新索引
+     */
+    public void onPostSaved(Post post) {
+        Long id = post.getId();
+        String title = post.getTitle();
+        String content = post.getContent();
+        String tags = post.getTags();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                doRemove(id);
+                doIndex(id, title, content, tags);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 帖子删除后调用，事务提交后再移出索引
+     */
+    public void onPostDeleted(Long postId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                doRemove(postId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 检索帖子
+     * @param keyword 关键词，可为空（仅按标签筛选）
+     * @param tags 标签筛选，需同时包含全部标签，可为空
+     * @return 按相关度降序排列的帖子ID；没有关键词时按发布先后倒序
+     */
+    public List<Long> search(String keyword, Set<String> tags) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(keyword, false)));
+        Set<String> tagFilter = new HashSet<>();
+        if (tags != null) {
+            tags.forEach(tag -> tagFilter.add(tag.trim().toLowerCase()));
+            tagFilter.remove("");
+        }
+
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty()) {
+                List<Long> ids = new ArrayList<>();
+                for (Map.Entry<Long, Doc> entry : docs.entrySet()) {
+                    if (entry.getValue().tags.containsAll(tagFilter)) {
+                        ids.add(entry.getKey());
+                    }
+                }
+                ids.sort(Collections.reverseOrder());
+                return ids;
+            }
+
+            // 从文档频率最低的词项开始求交集，候选集最小
+            List<Map<Long, Double>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Double> posting = postings.get(term);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                termPostings.add(posting);
+            }
+            termPostings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            int docCount = docs.size();
+            double avgLength = docCount > 0 ? totalLength / docCount : 1;
+            Map<Long, Double> scores = new HashMap<>();
+            candidates:
+            for (Long id : termPostings.get(0).keySet()) {
+                Doc doc = docs.get(id);
+                if (!doc.tags.containsAll(tagFilter)) {
+                    continue;
+                }
+                double score = 0;
+                for (Map<Long, Double> posting : termPostings) {
+                    Double tf = posting.get(id);
+                    if (tf == null) {
+                        continue candidates;
+                    }
+                    double idf = Math.log(1 + (docCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                    score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                }
+                scores.put(id, score);
+            }
+
+            List<Long> ids = new ArrayList<>(scores.keySet());
+            ids.sort((a, b) -> {
+                int cmp = Double.compare(scores.get(b), scores.get(a));
+                return cmp != 0 ? cmp : Long.compare(b, a);
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void doIndex(Post post) {
+        doIndex(post.getId(), post.getTitle(), post.getContent(), post.getTags());
+    }
+
+    private void doIndex(Long id, String title, String content, String tags) {
+        Map<String, Double> tf = new HashMap<>();
+        double length = 0;
+        length += addTerms(tf, tokenize(title, true), TITLE_WEIGHT);
+        length += addTerms(tf, tokenize(content, true), CONTENT_WEIGHT);
+        length += addTerms(tf, tokenize(tags, true), TAG_WEIGHT);
+
+        Set<String> tagSet = new HashSet<>();
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                String normalized = tag.trim().toLowerCase();
+                if (!normalized.isEmpty()) {
+                    tagSet.add(normalized);
+                }
+            }
+        }
+
+        tf.forEach((term, weight) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, weight));
+        docs.put(id, new Doc(length, tf.keySet(), tagSet));
+        totalLength += length;
+    }
+
+    private void doRemove(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Map<Long, Double> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length;
+    }
+
+    private static double addTerms(Map<String, Double> tf, List<String> terms, double weight) {
+        for (String term : terms) {
+            tf.merge(term, weight, Double::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    /**
+     * 分词：连续的中文按相邻两字切分（单个汉字保留为一个词），连续的字母数字作为一个词
+     * @param withUnigrams 建索引时同时收录每个汉字，使单字查询（如“痛”）也能命中
+     */
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            char c = lower.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                if (withUnigrams || i - start == 1) {
+                    for (int j = start; j < i; j++) {
+                        terms.add(lower.substring(j, j + 1));
+                    }
+                }
+                for (int j = start; j + 2 <= i; j++) {
+                    terms.add(lower.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(lower.charAt(i)) && !isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                terms.add(lower.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isCjk(char c) {
+        return c >= '\u4e00' && c <= '\u9fa5';
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Doc {
+        private final double length;
+        private final Set<String> terms;
+        private final Set<String> tags;
+
+        Doc(double length, Set<String> terms, Set<String> tags) {
+            this.length = length;
+            this.terms = terms;
+            this.tags = tags;
+        }
+    }
+}
@@ -22,6 +22,15 @@ public interface PostService {
     void deletePostByUser(Long id, Long userId);
     void likePost(Long id);
     Page<PostDTO> searchPosts(String keyword, Pageable pageable);
+
+    /**
+     * 全文检索帖子，按相关度排序
+     * @param keyword 关键词
+     * @param tags 标签筛选（逗号分隔，需同时包含），可为空
+     * @param pageable 分页参数
+     * @return 帖子分页列表
+     */
+    Page<PostDTO> searchPosts(String keyword, String tags, Pageable pageable);
     Page<PostDTO> getPostsByAuthor(Long authorId, Pageable pageable);
     Page<PostDTO> getPostsByCategory(Long categoryId, Pageable pageable);
     Page<PostDTO> getPostsByTags(String tags, Pageable pageable);
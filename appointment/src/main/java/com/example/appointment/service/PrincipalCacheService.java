@@ -0,0 +1,194 @@
+package com.example.appointment.service;
+
+import com.example.appointment.common.AuthPrincipal;
+import com.example.appointment.entity.User;
+import com.example.appointment.repository.UserRepository;
+import com.example.appointment.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 认证用户缓存
+ * token只在首次出现时验签解析并查询一次用户，之后按token摘要从缓存中直接取得用户信息；
+ * 缓存有容量上限，条目在配置的TTL与token自身过期时间中较早者失效。
+ * 用户修改密码、变更信息或被删除时需调用 invalidateUser 清除本节点的缓存；缓存不在节点间共享，
+ * 其他节点上的条目要等TTL到期才会失效，因此TTL只设几秒，仅用于合并同一用户短时间内的连续请求
+ */
+@Service
+@RequiredArgsConstructor
+public class PrincipalCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrincipalCacheService.class);
+
+    private final JwtUtils jwtUtils;
+    private final UserRepository userRepository;
+
+    @Value("${appointment.auth.principal-cache-ttl-seconds:5}")
+    private long ttlSeconds;
+
+    @Value("${appointment.auth.principal-cache-max-size:10000}")
+    private int maxSize;
+
+    /**
+     * token摘要 -> 缓存条目
+     */
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 该用户已缓存的token摘要，用于按用户失效
+     */
+    private final Map<Long, Set<String>> userTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，加载用户期间发生过失效时丢弃本次加载的结果，避免旧数据在失效后被重新放入缓存
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 解析token得到认证用户
+     * @return 认证用户，token无效、已过期或用户不存在时返回null
+     */
+    public AuthPrincipal authenticate(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+
+        CacheEntry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expireAt > now) {
+                return entry.principal;
+            }
+            remove(key, entry);
+        }
+
+        long seenInvalidations = invalidations.get();
+        Claims claims = jwtUtils.parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        User user = userRepository.findByUsername(claims.getSubject()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        AuthPrincipal principal = new AuthPrincipal(user.getId(), user.getUsername(), user.getRole());
+        long expireAt = now + ttlSeconds * 1000;
+        if (claims.getExpiration() != null) {
+            expireAt = Math.min(expireAt, claims.getExpiration().getTime());
+        }
+
+        if (cache.size() >= maxSize) {
+            evict(now);
+        }
+        CacheEntry created = new CacheEntry(principal, expireAt);
+        cache.put(key, created);
+        userTokens.computeIfAbsent(user.getId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        // 失效先计数再清除：计数在放入前变化则由这里移除，在放入后变化则由失效操作按用户清除
+        if (invalidations.get() != seenInvalidations) {
+            remove(key, created);
+        }
+        return principal;
+    }
+
+    /**
+     * 清除指定用户的全部缓存，存在事务时在提交后执行，避免提交前被旧数据重新填充
+     */
+    public void invalidateUser(Long userId) {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            Set<String> keys = userTokens.remove(userId);
+            if (keys != null) {
+                keys.forEach(cache::remove);
+            }
+        });
+    }
+
+    /**
+     * 清除全部缓存（批量重置密码等场景）
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            cache.clear();
+            userTokens.clear();
+        });
+    }
+
+    /**
+     * 容量已满时先清理过期条目，仍然不足则淘汰部分条目
+     */
+    private synchronized void evict(long now) {
+        if (cache.size() < maxSize) {
+            return;
+        }
+        cache.forEach((key, entry) -> {
+            if (entry.expireAt <= now) {
+                remove(key, entry);
+            }
+        });
+
+        int target = maxSize * 9 / 10;
+        Iterator<Map.Entry<String, CacheEntry>> iterator = cache.entrySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            Map.Entry<String, CacheEntry> next = iterator.next();
+            remove(next.getKey(), next.getValue());
+        }
+        log.debug("认证用户缓存已清理，当前条目数: {}", cache.size());
+    }
+
+    private void remove(String key, CacheEntry entry) {
+        if (cache.remove(key, entry)) {
+            Set<String> keys = userTokens.get(entry.principal.getId());
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class CacheEntry {
+        private final AuthPrincipal principal;
+        private final long expireAt;
+
+        CacheEntry(AuthPrincipal principal, long expireAt) {
+            this.principal = principal;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.appointment.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌桶限流器
+ * 每个键只保存一个“理论到达时间”（GCRA算法，与令牌桶等价）：请求到达时若该时间领先当前时间不超过突发容忍度即放行，
+ * 并通过CAS把它推后一个令牌间隔，全程无锁。时间已落后于当前时间的桶处于满状态，与新建的桶没有区别，定时清理
+ */
+@Service
+public class RateLimiterService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterService.class);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试获取一个令牌
+     * @param capacity 桶容量（突发请求数）
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @return 是否放行
+     */
+    public boolean tryAcquire(String key, int capacity, double permitsPerSecond) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, permitsPerSecond));
+        return bucket.tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * 定时移除已回满的桶
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        int removed = before - buckets.size();
+        if (removed > 0) {
+            log.debug("已清理 {} 个空闲限流桶，剩余 {} 个", removed, buckets.size());
+        }
+    }
+
+    private static class Bucket {
+        // 每个令牌的补充间隔
+        private final long intervalNanos;
+        // 允许理论到达时间领先当前时间的最大值，对应 capacity - 1 个令牌
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(int capacity, double permitsPerSecond) {
+            this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+            this.toleranceNanos = intervalNanos * Math.max(0, capacity - 1);
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long arrival = Math.max(current, now);
+                if (arrival - now > toleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, arrival + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+}
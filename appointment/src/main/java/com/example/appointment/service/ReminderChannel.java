@@ -0,0 +1,20 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.ReminderMessage;
+
+/**
+ * 提醒发送渠道（短信、邮件、推送等）
+ * 新增渠道只需实现该接口并注册为Spring Bean
+ */
+public interface ReminderChannel {
+
+    /**
+     * 渠道名称
+     */
+    String getName();
+
+    /**
+     * 发送提醒，发送失败时抛出异常
+     */
+    void send(ReminderMessage message) throws Exception;
+}
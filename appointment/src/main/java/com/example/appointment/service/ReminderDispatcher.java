@@ -0,0 +1,212 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.ReminderMessage;
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.repository.AppointmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预约提醒分发流水线
+ * 生产者按ID游标分页读取待提醒预约（只取发送所需字段），有界线程池并发渲染并通过各提醒渠道发送，
+ * 每页发送成功的预约用一条 UPDATE ... WHERE id IN (...) 批量标记为已提醒。
+ * 每次运行前通过数据库命名锁选出唯一执行节点，避免多实例部署时重复发送
+ */
+@Service
+@RequiredArgsConstructor
+public class ReminderDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderDispatcher.class);
+
+    private static final String LEADER_LOCK = "appointment_reminder_dispatch";
+
+    private static final List<String> ACTIVE_STATUSES = Arrays.asList(
+            AppointmentStatus.PENDING.name(), AppointmentStatus.CONFIRMED.name());
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("MM月dd日 HH:mm");
+
+    private final AppointmentRepository appointmentRepository;
+    private final LeaderLockService leaderLockService;
+    private final List<ReminderChannel> channels;
+
+    @Value("${appointment.reminder.page-size:200}")
+    private int pageSize;
+
+    @Value("${appointment.reminder.workers:4}")
+    private int workers;
+
+    private ThreadPoolExecutor executor;
+
+    // 本节点内防止两次运行重叠
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile Map<String, Object> lastRunMetrics = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(pageSize),
+                r -> {
+                    Thread thread = new Thread(r, "reminder-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 队列满时由生产者线程自行发送，起到背压作用
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 发送预约时间在 [startTime, endTime] 内、尚未提醒的预约提醒
+     * @return 本次运行统计：successCount、errorCount、totalCount、durationMs、throughputPerSecond等
+     */
+    public Map<String, Object> dispatch(LocalDateTime startTime, LocalDateTime endTime) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("上一次提醒分发仍在进行，跳过本次运行");
+            return skipped("上一次提醒分发仍在进行");
+        }
+        try {
+            // 多实例部署时只有持有命名锁的节点执行
+            return leaderLockService.runAsLeader(LEADER_LOCK, () -> runPipeline(startTime, endTime))
+                    .orElseGet(() -> {
+                        log.info("其他节点正在分发提醒，跳过本次运行");
+                        return skipped("其他节点正在分发提醒");
+                    });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 最近一次运行的统计数据
+     */
+    public Map<String, Object> getLastRunMetrics() {
+        return lastRunMetrics;
+    }
+
+    private Map<String, Object> runPipeline(LocalDateTime startTime, LocalDateTime endTime) {
+        long startNanos = System.nanoTime();
+        int total = 0;
+        int success = 0;
+        int error = 0;
+        int pages = 0;
+        long lastId = 0L;
+
+        while (true) {
+            List<Object[]> rows = appointmentRepository.findReminderBatch(
+                    lastId, startTime, endTime, ACTIVE_STATUSES, pageSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            pages++;
+            total += rows.size();
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+
+            // 并发发送本页提醒，收集发送成功的预约ID
+            ConcurrentLinkedQueue<Long> delivered = new ConcurrentLinkedQueue<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ReminderMessage message = render(row);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    if (deliver(message)) {
+                        delivered.add(message.getAppointmentId());
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            if (!delivered.isEmpty()) {
+                appointmentRepository.markReminded(new ArrayList<>(delivered));
+            }
+            success += delivered.size();
+            error += rows.size() - delivered.size();
+
+            if (rows.size() < pageSize) {
+                break;
+            }
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("successCount", success);
+        metrics.put("errorCount", error);
+        metrics.put("totalCount", total);
+        metrics.put("pages", pages);
+        metrics.put("durationMs", durationMs);
+        metrics.put("throughputPerSecond", durationMs > 0 ? total * 1000.0 / durationMs : total);
+        metrics.put("finishedAt", LocalDateTime.now());
+        lastRunMetrics = Collections.unmodifiableMap(metrics);
+
+        log.info("提醒分发完成：共 {} 条，成功 {}，失败 {}，{} 页，耗时 {} ms",
+                total, success, error, pages, durationMs);
+        return metrics;
+    }
+
+    private ReminderMessage render(Object[] row) {
+        ReminderMessage message = new ReminderMessage();
+        message.setAppointmentId(((Number) row[0]).longValue());
+        message.setPatientId(((Number) row[1]).longValue());
+        message.setPatientName((String) row[2]);
+        message.setDoctorName((String) row[3]);
+        LocalDateTime appointmentTime = row[4] instanceof Timestamp
+                ? ((Timestamp) row[4]).toLocalDateTime()
+                : (LocalDateTime) row[4];
+        message.setAppointmentTime(appointmentTime);
+        message.setContent(String.format("您预约的%s医生将于%s就诊，请提前准备",
+                message.getDoctorName(), appointmentTime.format(TIME_FORMATTER)));
+        return message;
+    }
+
+    /**
+     * 通过全部渠道发送，全部成功才视为已提醒
+     */
+    private boolean deliver(ReminderMessage message) {
+        for (ReminderChannel channel : channels) {
+            try {
+                channel.send(message);
+            } catch (Exception e) {
+                log.warn("通过渠道 {} 发送预约 {} 的提醒失败: {}",
+                        channel.getName(), message.getAppointmentId(), e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Object> skipped(String reason) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("successCount", 0);
+        result.put("errorCount", 0);
+        result.put("totalCount", 0);
+        result.put("skipped", true);
+        result.put("reason", reason);
+        return result;
+    }
+}
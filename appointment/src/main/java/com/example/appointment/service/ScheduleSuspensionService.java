@@ -0,0 +1,321 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.ScheduleSuspensionProgressDTO;
+import com.example.appointment.dto.ScheduleSuspensionRequest;
+import com.example.appointment.entity.AppointmentEvent;
+import com.example.appointment.entity.DoctorSchedule;
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.exception.BusinessException;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.repository.DoctorScheduleRepository;
+import com.example.appointment.util.SqlDateUtil;
+import com.example.appointment.util.TimeSlotUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 停诊服务
+ * 排班停诊时，受影响的预约用一次时间段查询定位，一条批量更新取消，同时清零排班剩余号源，
+ * 患者通知以发件箱事件批量写入，由 AppointmentOutboxService 在后台投递。
+ * 批量停诊（整个科室、多天）在后台线程中按批次执行，每批一个事务，调用方可轮询进度
+ */
+@Service
+@RequiredArgsConstructor
+public class ScheduleSuspensionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleSuspensionService.class);
+
+    private static final List<String> ACTIVE_STATUSES = Arrays.asList(
+            AppointmentStatus.PENDING.name(), AppointmentStatus.CONFIRMED.name());
+
+    // 每个事务处理的排班数
+    private static final int SESSIONS_PER_BATCH = 200;
+
+    // 每条取消语句包含的预约数
+    private static final int CANCEL_CHUNK_SIZE = 1000;
+
+    private static final int MAX_SUSPENSION_DAYS = 92;
+
+    // 已结束任务的保留时间
+    private static final long FINISHED_JOB_RETENTION_MILLIS = 3600_000L;
+
+    private final DoctorScheduleRepository scheduleRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentOutboxService outboxService;
+    private final SlotInventoryService slotInventoryService;
+    private final AppointmentTimeIndex appointmentTimeIndex;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 任务ID -> 任务
+     */
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 单线程依次执行，避免两个停诊任务同时处理同一批排班
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-suspension");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交批量停诊任务，立即返回任务进度
+     */
+    public ScheduleSuspensionProgressDTO submit(ScheduleSuspensionRequest request) {
+        if (request.getDepartmentId() == null && request.getDoctorId() == null) {
+            throw new BusinessException("请选择科室或医生");
+        }
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate()) >= MAX_SUSPENSION_DAYS) {
+            throw new BusinessException("一次最多停诊" + MAX_SUSPENSION_DAYS + "天");
+        }
+        String period = request.getPeriod() == null || request.getPeriod().isBlank() ? null : request.getPeriod();
+
+        List<Session> sessions = new ArrayList<>();
+        for (Object[] row : scheduleRepository.findActiveSessionsForSuspension(request.getDepartmentId(),
+                request.getDoctorId(), request.getStartDate(), request.getEndDate(), period)) {
+            sessions.add(new Session(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    row[2] != null ? ((Number) row[2]).longValue() : null, SqlDateUtil.toLocalDate(row[3]), (String) row[4]));
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), sessions.size());
+        jobs.put(job.id, job);
+        log.info("提交停诊任务 {}：科室={}，医生={}，{} 至 {}，时段={}，共 {} 个排班，原因：{}", job.id,
+                request.getDepartmentId(), request.getDoctorId(), request.getStartDate(), request.getEndDate(),
+                period, sessions.size(), request.getReason());
+        executor.submit(() -> run(job, sessions));
+        return job.toDTO();
+    }
+
+    /**
+     * 查询任务进度，任务不存在或已过期时返回null
+     */
+    public ScheduleSuspensionProgressDTO getProgress(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.toDTO() : null;
+    }
+
+    /**
+     * 在当前事务中停诊单个排班（排班修改接口将状态改为停诊时调用）
+     * @return 取消的预约数
+     */
+    public int suspend(DoctorSchedule schedule) {
+        Session session = new Session(schedule.getId(), schedule.getDoctorId(), schedule.getDepartmentId(),
+                schedule.getScheduleDate(), schedule.getPeriod());
+        return suspendBatch(List.of(session)).cancelled;
+    }
+
+    /**
+     * 统计落在排班内的有效预约数，恢复出诊时据此重算剩余号源
+     */
+    public int countActiveAppointments(DoctorSchedule schedule) {
+        LocalDate date = schedule.getScheduleDate();
+        int count = 0;
+        for (Object[] row : appointmentRepository.findActiveAppointmentTimesForDoctors(List.of(schedule.getDoctorId()),
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), ACTIVE_STATUSES)) {
+            if (schedule.getPeriod().equals(TimeSlotUtil.resolveSchedulePeriod(SqlDateUtil.toLocalDateTime(row[3])))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 定时清理已结束的任务
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void cleanupFinishedJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.finishedAt > 0 && now - job.finishedAt > FINISHED_JOB_RETENTION_MILLIS);
+    }
+
+    private void run(Job job, List<Session> sessions) {
+        try {
+            for (int from = 0; from < sessions.size(); from += SESSIONS_PER_BATCH) {
+                List<Session> batch = sessions.subList(from, Math.min(from + SESSIONS_PER_BATCH, sessions.size()));
+                BatchResult result = transactionTemplate.execute(status -> suspendBatch(batch));
+                job.processedSessions.addAndGet(batch.size());
+                job.cancelledAppointments.addAndGet(result.cancelled);
+                job.notificationsQueued.addAndGet(result.notified);
+            }
+            job.finish(Job.COMPLETED, null);
+            log.info("停诊任务 {} 完成：停诊 {} 个排班，取消 {} 个预约，耗时 {} ms", job.id,
+                    job.processedSessions.get(), job.cancelledAppointments.get(), job.finishedAt - job.startedAt);
+        } catch (Exception e) {
+            job.finish(Job.FAILED, e.getMessage());
+            log.error("停诊任务 {} 失败，已处理 {} / {} 个排班", job.id, job.processedSessions.get(), job.totalSessions, e);
+        }
+    }
+
+    /**
+     * 停诊一批排班：清零号源、一次查询定位受影响的预约、批量取消并写入通知事件
+     */
+    private BatchResult suspendBatch(List<Session> sessions) {
+        List<Long> scheduleIds = new ArrayList<>(sessions.size());
+        Set<Long> doctorIds = new HashSet<>();
+        Set<String> sessionKeys = new HashSet<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+        for (Session session : sessions) {
+            scheduleIds.add(session.scheduleId);
+            doctorIds.add(session.doctorId);
+            sessionKeys.add(key(session.doctorId, session.date, session.period));
+            minDate = minDate == null || session.date.isBefore(minDate) ? session.date : minDate;
+            maxDate = maxDate == null || session.date.isAfter(maxDate) ? session.date : maxDate;
+        }
+
+        scheduleRepository.suspendSchedules(scheduleIds);
+
+        // 时间段查询医生们在日期范围内的全部有效预约，再按医生、日期、时段筛出落在停诊排班内的预约（时段规则与预约时一致）
+        List<Long> affected = new ArrayList<>();
+        for (Object[] row : appointmentRepository.findActiveAppointmentTimesForDoctors(doctorIds,
+                minDate.atStartOfDay(), maxDate.plusDays(1).atStartOfDay(), ACTIVE_STATUSES)) {
+            LocalDateTime time = SqlDateUtil.toLocalDateTime(row[3]);
+            String period = TimeSlotUtil.resolveSchedulePeriod(time);
+            if (sessionKeys.contains(key(((Number) row[1]).longValue(), time.toLocalDate(), period))) {
+                affected.add(((Number) row[0]).longValue());
+            }
+        }
+
+        // 查询之后患者可能已自行取消：先锁定仍有效的预约，只取消、通知这些预约
+        List<Long> cancelledIds = new ArrayList<>(affected.size());
+        int cancelled = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < affected.size(); from += CANCEL_CHUNK_SIZE) {
+            List<Long> locked = appointmentRepository.lockAppointmentIdsInStatus(
+                    affected.subList(from, Math.min(from + CANCEL_CHUNK_SIZE, affected.size())), ACTIVE_STATUSES)
+                    .stream().map(Number::longValue).collect(Collectors.toList());
+            if (locked.isEmpty()) {
+                continue;
+            }
+            cancelled += appointmentRepository.cancelAppointmentsByIds(locked, ACTIVE_STATUSES, now);
+            cancelledIds.addAll(locked);
+        }
+        outboxService.publishAll(cancelledIds, AppointmentEvent.TYPE_SUSPENDED);
+
+        appointmentTimeIndex.onAppointmentsCancelled(cancelledIds);
+        scheduleIds.forEach(slotInventoryService::evict);
+        LocalDate calendarStart = minDate;
+        LocalDate calendarEnd = maxDate;
+        sessions.stream().map(session -> session.departmentId).filter(Objects::nonNull).distinct()
+                .forEach(departmentId -> availabilityCalendarService.evict(departmentId, calendarStart, calendarEnd));
+        return new BatchResult(cancelled, cancelledIds.size());
+    }
+
+    private static String key(long doctorId, LocalDate date, String period) {
+        return doctorId + ":" + date + ":" + period;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static class Session {
+        private final long scheduleId;
+        private final long doctorId;
+        private final Long departmentId;
+        private final LocalDate date;
+        private final String period;
+
+        Session(long scheduleId, long doctorId, Long departmentId, LocalDate date, String period) {
+            this.scheduleId = scheduleId;
+            this.doctorId = doctorId;
+            this.departmentId = departmentId;
+            this.date = date;
+            this.period = period;
+        }
+    }
+
+    private static class BatchResult {
+        private final int cancelled;
+        private final int notified;
+
+        BatchResult(int cancelled, int notified) {
+            this.cancelled = cancelled;
+            this.notified = notified;
+        }
+    }
+
+    private static class Job {
+        private static final String RUNNING = "RUNNING";
+        private static final String COMPLETED = "COMPLETED";
+        private static final String FAILED = "FAILED";
+
+        private final String id;
+        private final int totalSessions;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicInteger processedSessions = new AtomicInteger();
+        private final AtomicInteger cancelledAppointments = new AtomicInteger();
+        private final AtomicInteger notificationsQueued = new AtomicInteger();
+        private volatile String status = RUNNING;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        Job(String id, int totalSessions) {
+            this.id = id;
+            this.totalSessions = totalSessions;
+        }
+
+        void finish(String status, String error) {
+            this.error = error;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        ScheduleSuspensionProgressDTO toDTO() {
+            ScheduleSuspensionProgressDTO dto = new ScheduleSuspensionProgressDTO();
+            dto.setJobId(id);
+            dto.setStatus(status);
+            dto.setTotalSessions(totalSessions);
+            dto.setProcessedSessions(processedSessions.get());
+            dto.setCancelledAppointments(cancelledAppointments.get());
+            dto.setNotificationsQueued(notificationsQueued.get());
+            dto.setStartedAt(toLocalDateTime(startedAt));
+            dto.setFinishedAt(finishedAt > 0 ? toLocalDateTime(finishedAt) : null);
+            dto.setElapsedMillis((finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt);
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
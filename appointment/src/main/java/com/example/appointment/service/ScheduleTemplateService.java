@@ -0,0 +1,298 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.ScheduleGenerationRequest;
+import com.example.appointment.dto.ScheduleGenerationResultDTO;
+import com.example.appointment.dto.ScheduleTemplateDTO;
+import com.example.appointment.dto.ScheduleTemplateExclusionDTO;
+import com.example.appointment.entity.Doctor;
+import com.example.appointment.entity.ScheduleTemplate;
+import com.example.appointment.entity.ScheduleTemplateExclusion;
+import com.example.appointment.exception.BusinessException;
+import com.example.appointment.repository.DoctorRepository;
+import com.example.appointment.repository.DoctorScheduleRepository;
+import com.example.appointment.repository.ScheduleTemplateExclusionRepository;
+import com.example.appointment.repository.ScheduleTemplateRepository;
+import com.example.appointment.util.SqlDateUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 排班模板服务
+ * 医生的每周出诊时段保存为模板，按日期范围展开生成排班：已有排班一次查出后在内存中去重，
+ * 模板例外（节假日、休假）跳过，新排班用JDBC批量插入，整科室一个月的排班在一个请求内完成。
+ * doctor_schedule 上 (doctor_id, schedule_date, period) 有唯一索引，插入使用 INSERT IGNORE，
+ * 并发生成同一范围的排班时以数据库去重为准，内存去重只用于减少插入行数
+ */
+@Service
+@RequiredArgsConstructor
+public class ScheduleTemplateService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleTemplateService.class);
+
+    private static final int MAX_GENERATION_DAYS = 92;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO doctor_schedule (doctor_id, department_id, schedule_date, period, " +
+            "max_appointments, available_appointments, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, 1, ?, ?)";
+
+    private final ScheduleTemplateRepository templateRepository;
+    private final ScheduleTemplateExclusionRepository exclusionRepository;
+    private final DoctorScheduleRepository scheduleRepository;
+    private final DoctorRepository doctorRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AvailabilityCalendarService availabilityCalendarService;
+
+    /**
+     * 保存模板，同一医生同一星期同一时段已有模板时更新其最大预约人数
+     */
+    @Transactional
+    public ScheduleTemplateDTO saveTemplate(ScheduleTemplateDTO templateDTO) {
+        checkPeriod(templateDTO.getPeriod());
+        Doctor doctor = doctorRepository.findById(templateDTO.getDoctorId())
+                .orElseThrow(() -> new BusinessException("医生不存在"));
+        if (doctor.getDepartment() == null) {
+            throw new BusinessException("医生未关联科室，无法创建排班模板");
+        }
+
+        ScheduleTemplate template = templateRepository.findByDoctorDayAndPeriod(
+                templateDTO.getDoctorId(), templateDTO.getDayOfWeek(), templateDTO.getPeriod());
+        if (template == null) {
+            template = new ScheduleTemplate();
+            template.setDoctorId(templateDTO.getDoctorId());
+            template.setDayOfWeek(templateDTO.getDayOfWeek());
+            template.setPeriod(templateDTO.getPeriod());
+        }
+        template.setDepartmentId(doctor.getDepartment().getId());
+        template.setMaxAppointments(templateDTO.getMaxAppointments());
+        return convertToDTO(templateRepository.save(template));
+    }
+
+    @Transactional
+    public void deleteTemplate(Long id) {
+        if (!templateRepository.existsById(id)) {
+            throw new BusinessException("排班模板不存在");
+        }
+        templateRepository.deleteById(id);
+    }
+
+    public List<ScheduleTemplateDTO> getDoctorTemplates(Long doctorId) {
+        return templateRepository.findByDoctorIdOrdered(doctorId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    public List<ScheduleTemplateDTO> getDepartmentTemplates(Long departmentId) {
+        return templateRepository.findByDepartmentIdOrdered(departmentId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public ScheduleTemplateExclusionDTO addExclusion(ScheduleTemplateExclusionDTO exclusionDTO) {
+        if (!doctorRepository.existsById(exclusionDTO.getDoctorId())) {
+            throw new BusinessException("医生不存在");
+        }
+        if (exclusionDTO.getPeriod() != null && !exclusionDTO.getPeriod().isBlank()) {
+            checkPeriod(exclusionDTO.getPeriod());
+        }
+        ScheduleTemplateExclusion exclusion = new ScheduleTemplateExclusion();
+        exclusion.setDoctorId(exclusionDTO.getDoctorId());
+        exclusion.setExclusionDate(exclusionDTO.getExclusionDate());
+        exclusion.setPeriod(exclusionDTO.getPeriod() == null || exclusionDTO.getPeriod().isBlank() ? null : exclusionDTO.getPeriod());
+        exclusion.setReason(exclusionDTO.getReason());
+        return convertToDTO(exclusionRepository.save(exclusion));
+    }
+
+    @Transactional
+    public void deleteExclusion(Long id) {
+        if (!exclusionRepository.existsById(id)) {
+            throw new BusinessException("排班例外不存在");
+        }
+        exclusionRepository.deleteById(id);
+    }
+
+    /**
+     * 医生今天及以后的模板例外
+     */
+    public List<ScheduleTemplateExclusionDTO> getDoctorExclusions(Long doctorId) {
+        return exclusionRepository.findByDoctorIdFromDate(doctorId, LocalDate.now()).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按模板生成日期范围内（含首尾）的排班，已存在同医生同日期同时段排班的跳过
+     */
+    @Transactional
+    public ScheduleGenerationResultDTO generate(ScheduleGenerationRequest request) {
+        long startNanos = System.nanoTime();
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        if (startDate.isAfter(endDate)) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new BusinessException("不能生成过去的排班");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_GENERATION_DAYS) {
+            throw new BusinessException("一次最多生成" + MAX_GENERATION_DAYS + "天的排班");
+        }
+
+        List<ScheduleTemplate> templates = loadTemplates(request);
+        templates.forEach(template -> checkPeriod(template.getPeriod()));
+        ScheduleGenerationResultDTO result = new ScheduleGenerationResultDTO();
+        result.setTemplateCount(templates.size());
+        if (templates.isEmpty()) {
+            result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+            return result;
+        }
+
+        Set<Long> doctorIds = templates.stream().map(ScheduleTemplate::getDoctorId).collect(Collectors.toSet());
+
+        // 医生ID:日期:时段，已有排班一次查出
+        Set<String> existing = loadScheduleKeys(doctorIds, startDate, endDate);
+        int existingCount = existing.size();
+
+        // 医生ID:日期:时段，全天例外的时段记为 *
+        Set<String> exclusions = new HashSet<>();
+        for (ScheduleTemplateExclusion exclusion : exclusionRepository.findByDoctorIdsBetweenDates(doctorIds, startDate, endDate)) {
+            exclusions.add(key(exclusion.getDoctorId(), exclusion.getExclusionDate(),
+                    exclusion.getPeriod() != null ? exclusion.getPeriod() : "*"));
+        }
+
+        Map<Integer, List<ScheduleTemplate>> templatesByDay = new HashMap<>();
+        for (ScheduleTemplate template : templates) {
+            templatesByDay.computeIfAbsent(template.getDayOfWeek(), day -> new ArrayList<>()).add(template);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        int candidates = 0;
+        int skippedExisting = 0;
+        int skippedExclusion = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            List<ScheduleTemplate> dayTemplates = templatesByDay.get(date.getDayOfWeek().getValue());
+            if (dayTemplates == null) {
+                continue;
+            }
+            for (ScheduleTemplate template : dayTemplates) {
+                candidates++;
+                if (exclusions.contains(key(template.getDoctorId(), date, "*"))
+                        || exclusions.contains(key(template.getDoctorId(), date, template.getPeriod()))) {
+                    skippedExclusion++;
+                    continue;
+                }
+                if (!existing.add(key(template.getDoctorId(), date, template.getPeriod()))) {
+                    skippedExisting++;
+                    continue;
+                }
+                rows.add(new Object[]{template.getDoctorId(), template.getDepartmentId(), Date.valueOf(date),
+                        template.getPeriod(), template.getMaxAppointments(), template.getMaxAppointments(), now, now});
+            }
+        }
+
+        int created = 0;
+        boolean countsUnknown = false;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    countsUnknown = true;
+                } else {
+                    created += count;
+                }
+            }
+        }
+        if (countsUnknown) {
+            // 驱动合并批量插入时不返回逐行结果，按插入前后的排班数计算
+            created = loadScheduleKeys(doctorIds, startDate, endDate).size() - existingCount;
+        }
+        // 查询之后由并发请求插入的排班被唯一索引忽略，计为已存在
+        skippedExisting += rows.size() - created;
+        if (created > 0) {
+            templates.stream().map(ScheduleTemplate::getDepartmentId).distinct()
+                    .forEach(departmentId -> availabilityCalendarService.evict(departmentId, startDate, endDate));
+        }
+
+        result.setCandidateCount(candidates);
+        result.setCreatedCount(created);
+        result.setSkippedExistingCount(skippedExisting);
+        result.setSkippedExclusionCount(skippedExclusion);
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        log.info("按模板生成排班：{} 至 {}，模板 {} 个，新建 {} 条，已存在跳过 {} 条，例外跳过 {} 条，耗时 {} ms",
+                startDate, endDate, templates.size(), created, skippedExisting, skippedExclusion, result.getElapsedMillis());
+        return result;
+    }
+
+    private List<ScheduleTemplate> loadTemplates(ScheduleGenerationRequest request) {
+        if (request.getDepartmentId() != null) {
+            List<ScheduleTemplate> templates = templateRepository.findByDepartmentIdOrdered(request.getDepartmentId());
+            if (request.getDoctorId() != null) {
+                templates.removeIf(template -> !template.getDoctorId().equals(request.getDoctorId()));
+            }
+            return templates;
+        }
+        if (request.getDoctorId() != null) {
+            return templateRepository.findByDoctorIdOrdered(request.getDoctorId());
+        }
+        throw new BusinessException("请选择科室或医生");
+    }
+
+    private Set<String> loadScheduleKeys(Collection<Long> doctorIds, LocalDate startDate, LocalDate endDate) {
+        Set<String> keys = new HashSet<>();
+        for (Object[] row : scheduleRepository.findScheduleKeysBetweenDates(doctorIds, startDate, endDate)) {
+            keys.add(key(((Number) row[0]).longValue(), SqlDateUtil.toLocalDate(row[1]), (String) row[2]));
+        }
+        return keys;
+    }
+
+    private static void checkPeriod(String period) {
+        if (!AvailabilityCalendarService.PERIODS.contains(period)) {
+            throw new BusinessException("无效的时段：" + period + "，可选值为" + AvailabilityCalendarService.PERIODS);
+        }
+    }
+
+    private static String key(long doctorId, LocalDate date, String period) {
+        return doctorId + ":" + date + ":" + period;
+    }
+
+    private ScheduleTemplateDTO convertToDTO(ScheduleTemplate template) {
+        ScheduleTemplateDTO dto = new ScheduleTemplateDTO();
+        dto.setId(template.getId());
+        dto.setDoctorId(template.getDoctorId());
+        dto.setDepartmentId(template.getDepartmentId());
+        dto.setDayOfWeek(template.getDayOfWeek());
+        dto.setPeriod(template.getPeriod());
+        dto.setMaxAppointments(template.getMaxAppointments());
+        return dto;
+    }
+
+    private ScheduleTemplateExclusionDTO convertToDTO(ScheduleTemplateExclusion exclusion) {
+        ScheduleTemplateExclusionDTO dto = new ScheduleTemplateExclusionDTO();
+        dto.setId(exclusion.getId());
+        dto.setDoctorId(exclusion.getDoctorId());
+        dto.setExclusionDate(exclusion.getExclusionDate());
+        dto.setPeriod(exclusion.getPeriod());
+        dto.setReason(exclusion.getReason());
+        return dto;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.appointment.service;
+
+import com.example.appointment.entity.DoctorSchedule;
+import com.example.appointment.repository.DoctorScheduleRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 号源库存服务
+ * 以排班ID为键在内存中缓存剩余号源与排班状态，作为预约的快速路径：内存中有余号时CAS扣减后写穿到doctor_schedule表，
+ * 事务回滚时自动归还内存中的扣减。内存计数只在本节点维护，其他节点的取消、恢复出诊不会同步过来，
+ * 因此缓存条目超过有效期后从数据库重新加载，内存判定号满时仍以数据库的条件更新为准，号源是否超卖始终由数据库保证
+ */
+@Service
+@RequiredArgsConstructor
+public class SlotInventoryService implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotInventoryService.class);
+
+    private final DoctorScheduleRepository scheduleRepository;
+
+    @Value("${appointment.slot-inventory.ttl-seconds:5}")
+    private long ttlSeconds;
+
+    /**
+     * 排班ID -> 号源
+     */
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * 医生ID:日期:时段 -> 排班ID
+     */
+    private final Map<String, Long> slotIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时加载今天及以后的排班
+     */
+    @Override
+    public void run(String... args) {
+        List<DoctorSchedule> schedules = scheduleRepository.findSchedulesFromDateOrdered(LocalDate.now());
+        schedules.forEach(this::register);
+        log.info("号源库存预热完成，共加载 {} 个排班", schedules.size());
+    }
+
+    /**
+     * 查找医生在指定日期、时段的正常排班ID，内存未命中时回源数据库
+     * @return 排班ID，没有正常排班时返回null
+     */
+    public Long resolveScheduleId(Long doctorId, LocalDate date, String period) {
+        String key = indexKey(doctorId, date, period);
+        Long scheduleId = slotIndex.get(key);
+        Slot slot = scheduleId != null ? loadSlot(scheduleId) : null;
+        if (slot == null) {
+            // 未缓存或排班已在其他节点删除，按医生和日期重新加载
+            if (scheduleId != null) {
+                slotIndex.remove(key, scheduleId);
+            }
+            scheduleRepository.findByDoctorIdAndScheduleDate(doctorId, date).forEach(this::register);
+            scheduleId = slotIndex.get(key);
+            slot = scheduleId != null ? slots.get(scheduleId) : null;
+        }
+        return slot != null && slot.status == 1 ? scheduleId : null;
+    }
+
+    /**
+     * 是否还有剩余号源（只读内存，不扣减，结果最多滞后缓存有效期）
+     */
+    public boolean hasCapacity(Long scheduleId) {
+        Slot slot = loadSlot(scheduleId);
+        return slot != null && slot.available.get() > 0;
+    }
+
+    /**
+     * 剩余号源数
+     */
+    public int getAvailable(Long scheduleId) {
+        Slot slot = loadSlot(scheduleId);
+        return slot != null ? Math.max(0, slot.available.get()) : 0;
+    }
+
+    /**
+     * 预占一个号源
+     * @return 是否预占成功，号满时返回false
+     */
+    public boolean tryReserve(Long scheduleId) {
+        Slot slot = loadSlot(scheduleId);
+        if (slot == null) {
+            return false;
+        }
+
+        int current;
+        do {
+            current = slot.available.get();
+            if (current <= 0) {
+                return reserveFromDatabase(scheduleId);
+            }
+        } while (!slot.available.compareAndSet(current, current - 1));
+
+        // 先登记回滚补偿，写穿数据库时抛出异常导致回滚也能归还内存中的扣减
+        onRollback(() -> slot.available.incrementAndGet());
+
+        // 写穿到数据库，条件更新防止多实例部署时超卖
+        if (scheduleRepository.reserveAvailableAppointment(scheduleId) == 0) {
+            // 其他节点已约满等原因导致内存与数据库不一致，移除缓存，下次访问时按数据库重新加载
+            remove(scheduleId);
+            log.warn("排班 {} 内存号源与数据库不一致，已移除缓存", scheduleId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 内存判定号满时直接以数据库条件更新为准：其他节点取消预约或恢复出诊后本节点计数可能偏低
+     */
+    private boolean reserveFromDatabase(Long scheduleId) {
+        if (scheduleRepository.reserveAvailableAppointment(scheduleId) == 0) {
+            return false;
+        }
+        // 内存计数已落后于数据库，移除后下次访问重新加载
+        remove(scheduleId);
+        log.debug("排班 {} 内存号源已满但数据库仍有余号，已从数据库预占", scheduleId);
+        return true;
+    }
+
+    /**
+     * 归还一个号源（取消预约时调用）
+     */
+    public void release(Long scheduleId) {
+        Slot slot = loadSlot(scheduleId);
+        if (slot == null) {
+            return;
+        }
+
+        // 数据库始终归还，内存计数可能已过期，只在未超过上限时同步增加
+        scheduleRepository.updateAvailableAppointments(scheduleId, 1);
+
+        int current;
+        do {
+            current = slot.available.get();
+            if (current >= slot.maxAppointments) {
+                return;
+            }
+        } while (!slot.available.compareAndSet(current, current + 1));
+        onRollback(() -> slot.available.decrementAndGet());
+    }
+
+    /**
+     * 排班被修改或删除后移除缓存，下次访问时从数据库重新加载；在事务中调用时于提交后移除，
+     * 避免并发请求在提交前把旧值重新加载进缓存
+     */
+    public void evict(Long scheduleId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(scheduleId);
+                }
+            });
+        } else {
+            remove(scheduleId);
+        }
+    }
+
+    private void remove(Long scheduleId) {
+        Slot slot = slots.remove(scheduleId);
+        if (slot != null) {
+            slotIndex.remove(slot.indexKey, scheduleId);
+        }
+    }
+
+    private Slot loadSlot(Long scheduleId) {
+        Slot slot = slots.get(scheduleId);
+        if (slot == null || slot.isExpired(ttlSeconds)) {
+            slot = scheduleRepository.findById(scheduleId)
+                    .map(this::register)
+                    .orElse(null);
+            if (slot == null) {
+                remove(scheduleId);
+            }
+        }
+        return slot;
+    }
+
+    private Slot register(DoctorSchedule schedule) {
+        Slot slot = new Slot(schedule);
+        slots.put(schedule.getId(), slot);
+        slotIndex.put(slot.indexKey, schedule.getId());
+        return slot;
+    }
+
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    private static String indexKey(Long doctorId, LocalDate date, String period) {
+        return doctorId + ":" + date + ":" + period;
+    }
+
+    private static class Slot {
+        private final String indexKey;
+        private final int status;
+        private final int maxAppointments;
+        private final AtomicInteger available;
+        private final long loadedAt = System.nanoTime();
+
+        Slot(DoctorSchedule schedule) {
+            this.indexKey = indexKey(schedule.getDoctorId(), schedule.getScheduleDate(), schedule.getPeriod());
+            this.status = schedule.getStatus() != null ? schedule.getStatus() : 1;
+            this.maxAppointments = schedule.getMaxAppointments() != null ? schedule.getMaxAppointments() : 0;
+            this.available = new AtomicInteger(
+                    schedule.getAvailableAppointments() != null ? schedule.getAvailableAppointments() : this.maxAppointments);
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package com.example.appointment.service;
 
 import com.example.appointment.entity.Appointment;
-import com.example.appointment.entity.User;
 import com.example.appointment.repository.AppointmentRepository;
 import com.example.appointment.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -25,6 +23,9 @@ public class SmartReminderService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ReminderDispatcher reminderDispatcher;
+    
     /**
      * 获取用户的智能提醒
      * @param userId 用户ID
@@ -102,23 +103,16 @@ public class SmartReminderService {
                 .findPatientAppointmentsInTimeRangeWithStatus(
                         userId, now, tomorrow, Arrays.asList("PENDING", "CONFIRMED"));
         
-        // 检查时间冲突
-        for (int i = 0; i < userAppointments.size(); i++) {
-            for (int j = i + 1; j < userAppointments.size(); j++) {
-                Appointment appointment1 = userAppointments.get(i);
-                Appointment appointment2 = userAppointments.get(j);
-                
-                long minutesDiff = Math.abs(java.time.temporal.ChronoUnit.MINUTES.between(
-                        appointment1.getAppointmentTime(), appointment2.getAppointmentTime()));
-                
-                if (minutesDiff < 30) {
-                    reminders.add(String.format("⚠️ 您的两个预约时间冲突：%s（%s）和%s（%s），建议调整其中一个",
-                            appointment1.getDoctor().getName(),
-                            appointment1.getAppointmentTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")),
-                            appointment2.getDoctor().getName(),
-                            appointment2.getAppointmentTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"))));
-                }
-            }
+        // 按时间扫描一次找出间隔不足30分钟的预约对
+        for (ConflictSweepLine.Conflict<Appointment> conflict :
+                ConflictSweepLine.findConflicts(userAppointments, Appointment::getAppointmentTime, 30)) {
+            Appointment appointment1 = conflict.getFirst();
+            Appointment appointment2 = conflict.getSecond();
+            reminders.add(String.format("⚠️ 您的两个预约时间冲突：%s（%s）和%s（%s），建议调整其中一个",
+                    appointment1.getDoctor().getName(),
+                    appointment1.getAppointmentTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")),
+                    appointment2.getDoctor().getName(),
+                    appointment2.getAppointmentTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"))));
         }
         
         return reminders;
@@ -180,78 +174,20 @@ public class SmartReminderService {
     }
     
     /**
-     * 发送即将到来的预约提醒
+     * 发送未来24小时内的预约提醒
      */
     public Map<String, Object> sendUpcomingAppointmentReminders() {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int errorCount = 0;
-        
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime next24Hours = now.plusHours(24);
-        
-        // 获取未来24小时内需要提醒的预约
-        List<Appointment> appointmentsToRemind = appointmentRepository
-                .findAppointmentsInTimeRangeWithStatusAndNotReminded(
-                        now, next24Hours, Arrays.asList("PENDING", "CONFIRMED"));
-        
-        for (Appointment appointment : appointmentsToRemind) {
-            try {
-                sendReminderNotification(appointment);
-                appointment.setReminded(true);
-                appointmentRepository.save(appointment);
-                successCount++;
-            } catch (Exception e) {
-                errorCount++;
-                e.printStackTrace();
-            }
-        }
-        
-        result.put("successCount", successCount);
-        result.put("errorCount", errorCount);
-        result.put("totalCount", appointmentsToRemind.size());
-        return result;
+        return reminderDispatcher.dispatch(now, now.plusHours(24));
     }
     
     /**
-     * 定时任务：发送预约提醒通知
-     * 每30分钟执行一次
+     * 发送未来30分钟内的预约提醒
+     * 定时执行由 AppointmentReminderScheduler 统一负责，这里不再单独调度
      */
-    @Scheduled(cron = "0 0/30 * * * ?")
-    public void sendAppointmentReminders() {
+    public Map<String, Object> sendAppointmentReminders() {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime next30Minutes = now.plusMinutes(30);
-        
-        // 获取未来30分钟内需要提醒的预约
-        List<Appointment> appointmentsToRemind = appointmentRepository
-                .findAppointmentsInTimeRangeWithStatusAndNotReminded(
-                        now, next30Minutes, Arrays.asList("PENDING", "CONFIRMED"));
-        
-        for (Appointment appointment : appointmentsToRemind) {
-            try {
-                sendReminderNotification(appointment);
-                appointment.setReminded(true); // 标记已提醒
-                appointmentRepository.save(appointment);
-            } catch (Exception e) {
-                // 记录日志但不影响其他预约的提醒
-                System.err.println("发送预约提醒失败: " + e.getMessage());
-            }
-        }
-    }
-    
-    /**
-     * 发送提醒通知（可以扩展为短信、邮件、推送等）
-     */
-    private void sendReminderNotification(Appointment appointment) {
-        User patient = appointment.getPatient();
-        String message = String.format("您预约的%s医生将在30分钟后就诊，请提前准备",
-                appointment.getDoctor().getName());
-        
-        // 这里可以集成短信服务、邮件服务或推送服务
-        System.out.println(String.format("发送提醒通知给患者%s: %s", patient.getName(), message));
-        
-        // 记录提醒日志
-        // TODO: 可以添加提醒日志记录
+        return reminderDispatcher.dispatch(now, now.plusMinutes(30));
     }
     
     /**
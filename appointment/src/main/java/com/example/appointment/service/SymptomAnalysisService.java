@@ -26,4 +26,11 @@ public interface SymptomAnalysisService {
      * @return 匹配度分数 (0-100)
      */
     int calculateMatchScore(List<String> keywords, Long departmentId);
-}
\ No newline at end of file
+    
+    /**
+     * 重新加载症状词典
+     * @return 加载后的关键词数量
+     * @throws IllegalStateException 配置的词典文件不可读或没有有效词条，此时继续使用当前词典
+     */
+    int reloadDictionary();
+}
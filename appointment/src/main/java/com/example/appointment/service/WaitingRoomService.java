@@ -0,0 +1,212 @@
+package com.example.appointment.service;
+
+import com.example.appointment.dto.WaitingRoomTicketDTO;
+import com.example.appointment.exception.WaitingRoomException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预约排队室
+ * 号源集中放出时，预约前需先按科室领取排队凭证，凭证按领取顺序（FIFO）以每秒固定人数放行，
+ * 未放行的预约请求在进入预约服务前即被拦下并返回排队位置。
+ * 凭证状态全部在内存中计算，客户端轮询不访问数据库；科室空闲时新凭证立即放行
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitingRoomService.class);
+
+    @Value("${appointment.waiting-room.enabled:false}")
+    private boolean enabled;
+
+    @Value("${appointment.waiting-room.admits-per-second:20}")
+    private double admitsPerSecond;
+
+    @Value("${appointment.waiting-room.admission-window-seconds:300}")
+    private long admissionWindowSeconds;
+
+    @Value("${appointment.waiting-room.ticket-ttl-seconds:3600}")
+    private long ticketTtlSeconds;
+
+    /**
+     * 科室ID -> 排队室
+     */
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * 凭证ID -> 凭证
+     */
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID:科室ID -> 凭证ID，同一用户在同一科室只持有一张有效凭证
+     */
+    private final Map<String, String> userTickets = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 领取排队凭证，已持有未过期凭证时返回原凭证
+     */
+    public WaitingRoomTicketDTO issue(Long departmentId, Long userId) {
+        long now = System.currentTimeMillis();
+        String userKey = userId + ":" + departmentId;
+        String existingId = userTickets.get(userKey);
+        if (existingId != null) {
+            Ticket existing = tickets.get(existingId);
+            if (existing != null && !isExpired(existing, now)) {
+                return toDTO(existing, now);
+            }
+        }
+
+        Room room = rooms.computeIfAbsent(departmentId, id -> new Room(admitsPerSecond, now));
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), departmentId, userId, room.issue(now), now);
+        tickets.put(ticket.id, ticket);
+        userTickets.put(userKey, ticket.id);
+        return toDTO(ticket, now);
+    }
+
+    /**
+     * 查询凭证状态
+     * @return 凭证状态，凭证不存在、已过期或不属于该用户时返回null
+     */
+    public WaitingRoomTicketDTO getStatus(String ticketId, Long userId) {
+        long now = System.currentTimeMillis();
+        Ticket ticket = ticketId != null ? tickets.get(ticketId) : null;
+        if (ticket == null || !ticket.userId.equals(userId) || isExpired(ticket, now)) {
+            return null;
+        }
+        return toDTO(ticket, now);
+    }
+
+    /**
+     * 校验凭证已放行，未放行时抛出带排队状态的异常
+     * @param departmentId 预约的科室，凭证必须属于该科室；无法确定科室时传null，请求被拒绝
+     */
+    public void checkAdmitted(String ticketId, Long userId, Long departmentId) {
+        if (ticketId == null || ticketId.isBlank()) {
+            throw new WaitingRoomException("当前预约人数较多，请先排队", null);
+        }
+        if (departmentId == null) {
+            throw new WaitingRoomException("无法确定预约科室，请选择科室后重新排队", null);
+        }
+        WaitingRoomTicketDTO status = getStatus(ticketId, userId);
+        if (status == null || !departmentId.equals(status.getDepartmentId())) {
+            throw new WaitingRoomException("排队凭证无效或已过期，请重新排队", null);
+        }
+        if (!status.isAdmitted()) {
+            throw new WaitingRoomException("正在排队中，前方还有" + status.getPosition() + "人", status);
+        }
+    }
+
+    /**
+     * 定时清理过期凭证
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void cleanupExpired() {
+        long now = System.currentTimeMillis();
+        int before = tickets.size();
+        tickets.values().removeIf(ticket -> {
+            if (isExpired(ticket, now)) {
+                userTickets.remove(ticket.userId + ":" + ticket.departmentId, ticket.id);
+                return true;
+            }
+            return false;
+        });
+        int removed = before - tickets.size();
+        if (removed > 0) {
+            log.debug("已清理 {} 张过期排队凭证", removed);
+        }
+    }
+
+    private WaitingRoomTicketDTO toDTO(Ticket ticket, long now) {
+        Room room = rooms.get(ticket.departmentId);
+        long admittedUpTo = room != null ? room.admittedUpTo(now) : ticket.sequence;
+        long position = Math.max(0, ticket.sequence - admittedUpTo);
+        if (position == 0 && ticket.admittedAt == 0) {
+            ticket.admittedAt = now;
+        }
+
+        WaitingRoomTicketDTO dto = new WaitingRoomTicketDTO();
+        dto.setTicketId(ticket.id);
+        dto.setDepartmentId(ticket.departmentId);
+        dto.setPosition(position);
+        dto.setEstimatedWaitSeconds((long) Math.ceil(position / admitsPerSecond));
+        dto.setAdmitted(position == 0);
+        if (ticket.admittedAt > 0) {
+            dto.setAdmissionExpiresAt(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(ticket.admittedAt + admissionWindowSeconds * 1000), ZoneId.systemDefault()));
+        }
+        return dto;
+    }
+
+    private boolean isExpired(Ticket ticket, long now) {
+        if (ticket.admittedAt > 0) {
+            return now - ticket.admittedAt > admissionWindowSeconds * 1000;
+        }
+        return now - ticket.issuedAt > ticketTtlSeconds * 1000;
+    }
+
+    /**
+     * 科室排队室：issued 为已发出的最大序号，admitted 按放行速率随时间增长，
+     * 空闲时最多领先 issued 一秒的放行量，使零星请求无需等待
+     */
+    private static class Room {
+        private final double rate;
+        private long issued;
+        private double admitted;
+        private long lastAdvance;
+
+        Room(double rate, long now) {
+            this.rate = rate;
+            this.admitted = rate;
+            this.lastAdvance = now;
+        }
+
+        synchronized long issue(long now) {
+            advance(now);
+            return ++issued;
+        }
+
+        synchronized long admittedUpTo(long now) {
+            advance(now);
+            return (long) admitted;
+        }
+
+        private void advance(long now) {
+            if (now > lastAdvance) {
+                admitted = Math.min(issued + rate, admitted + (now - lastAdvance) * rate / 1000.0);
+                lastAdvance = now;
+            }
+        }
+    }
+
+    private static class Ticket {
+        private final String id;
+        private final Long departmentId;
+        private final Long userId;
+        private final long sequence;
+        private final long issuedAt;
+        private volatile long admittedAt;
+
+        Ticket(String id, Long departmentId, Long userId, long sequence, long issuedAt) {
+            this.id = id;
+            this.departmentId = departmentId;
+            this.userId = userId;
+            this.sequence = sequence;
+            this.issuedAt = issuedAt;
+        }
+    }
+}
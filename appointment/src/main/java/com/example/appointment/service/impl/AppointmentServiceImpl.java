@@ -2,11 +2,13 @@ package com.example.appointment.service.impl;
 
 import com.example.appointment.dto.AppointmentDTO;
 import com.example.appointment.dto.AppointmentResultDTO;
-import com.example.appointment.dto.DoctorScheduleDTO;
-import com.example.appointment.dto.TimeConflictAnalysisDTO;
-import com.example.appointment.service.AppointmentConflictService;
-import com.example.appointment.service.SmartReminderService;
+import com.example.appointment.dto.CursorPage;
+import com.example.appointment.service.AppointmentNumberGenerator;
+import com.example.appointment.service.AppointmentTimeIndex;
+import com.example.appointment.service.BookingLaneService;
+import com.example.appointment.service.AppointmentOutboxService;
 import com.example.appointment.entity.Appointment;
+import com.example.appointment.entity.AppointmentEvent;
 import com.example.appointment.entity.Department;
 import com.example.appointment.entity.Doctor;
 import com.example.appointment.entity.User;
@@ -16,9 +18,12 @@ import com.example.appointment.repository.AppointmentRepository;
 import com.example.appointment.repository.DepartmentRepository;
 import com.example.appointment.repository.DoctorRepository;
 import com.example.appointment.repository.UserRepository;
+import com.example.appointment.repository.projection.AppointmentListView;
 import com.example.appointment.service.AppointmentService;
-import com.example.appointment.service.DoctorScheduleService;
+import com.example.appointment.service.SlotInventoryService;
 import com.example.appointment.service.UserService;
+import com.example.appointment.util.AppointmentCursor;
+import com.example.appointment.util.TimeSlotUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +37,9 @@ import java.time.LocalTime;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,39 +48,58 @@ public class AppointmentServiceImpl implements AppointmentService {
     
     private static final Logger log = LoggerFactory.getLogger(AppointmentServiceImpl.class);
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final long COUNT_CACHE_TTL_MILLIS = 60_000;
+    private static final int MAX_COUNT_CACHE_SIZE = 10_000;
+
     private final AppointmentRepository appointmentRepository;
     private final DepartmentRepository departmentRepository;
     private final DoctorRepository doctorRepository;
     private final UserRepository userRepository;
-    private final DoctorScheduleService doctorScheduleService;
+    private final SlotInventoryService slotInventoryService;
     private final UserService userService;
-    private final AppointmentConflictService appointmentConflictService;
-    private final SmartReminderService smartReminderService;
+    private final AppointmentTimeIndex appointmentTimeIndex;
+    private final AppointmentOutboxService appointmentOutboxService;
+    private final AppointmentNumberGenerator appointmentNumberGenerator;
+    private final BookingLaneService bookingLaneService;
 
+    /**
+     * 筛选条件 -> 缓存的总数
+     */
+    private final Map<String, CachedCount> countCache = new ConcurrentHashMap<>();
+
+    /**
+     * 预约在事务中执行，启用医生预约通道时同一医生的预约在通道中依次执行。
+     * 当前用户依赖请求上下文，须在请求线程中取得后再交给通道，通道线程中不能读取请求范围的状态
+     */
     @Override
-    @Transactional
     public AppointmentResultDTO createAppointment(AppointmentDTO appointmentDTO) {
+        String role = userService.getCurrentUser().getRole();
+        return bookingLaneService.execute(appointmentDTO.getDoctorId(), () -> doCreateAppointment(appointmentDTO, role));
+    }
+
+    private AppointmentResultDTO doCreateAppointment(AppointmentDTO appointmentDTO, String role) {
         log.info("Creating new appointment for doctor: {}, time: {}", 
                 appointmentDTO.getDoctorId(), appointmentDTO.getAppointmentTime());
 
         // 验证预约时间
-        validateAppointmentTime(appointmentDTO.getAppointmentTime());
+        validateAppointmentTime(appointmentDTO.getAppointmentTime(), role);
 
-        // 获取医生当天的排班信息
+        // 获取医生当天对应时段的排班
         LocalDate appointmentDate = appointmentDTO.getAppointmentTime().toLocalDate();
-        List<DoctorScheduleDTO> schedules = doctorScheduleService.getDoctorSchedules(
-            appointmentDTO.getDoctorId(), 
-            appointmentDate
+        Long scheduleId = slotInventoryService.resolveScheduleId(
+            appointmentDTO.getDoctorId(),
+            appointmentDate,
+            TimeSlotUtil.resolveSchedulePeriod(appointmentDTO.getAppointmentTime())
         );
 
         // 检查是否有排班
-        DoctorScheduleDTO schedule = findMatchingSchedule(schedules, appointmentDTO.getAppointmentTime());
-        if (schedule == null) {
+        if (scheduleId == null) {
             throw new IllegalStateException("所选时间段医生未排班");
         }
 
         // 检查是否还有可用预约数
-        if (schedule.getAvailableAppointments() <= 0) {
+        if (!slotInventoryService.hasCapacity(scheduleId)) {
             throw new IllegalStateException("所选时间段预约已满");
         }
 
@@ -103,40 +130,20 @@ public class AppointmentServiceImpl implements AppointmentService {
         appointment.setDescription(appointmentDTO.getDescription());
         
         // 生成预约编号
-        String appointmentNumber = generateAppointmentNumber();
+        String appointmentNumber = appointmentNumberGenerator.next();
         appointment.setAppointmentNumber(appointmentNumber);
 
-        // 保存预约并更新可用预约数
+        // 预占号源并保存预约
+        if (!slotInventoryService.tryReserve(scheduleId)) {
+            throw new IllegalStateException("所选时间段预约已满");
+        }
         appointment = appointmentRepository.save(appointment);
-        doctorScheduleService.updateAvailableAppointments(schedule.getId(), -1);
+        appointmentTimeIndex.onAppointmentChanged(appointment);
 
         log.info("Created appointment with ID: {}", appointment.getId());
         
-        // 执行冲突检测
-        try {
-            TimeConflictAnalysisDTO conflictAnalysis = appointmentConflictService.analyzeTimeConflicts(
-                appointment.getPatient().getId(),
-                appointment.getDoctor().getId(),
-                appointment.getAppointmentTime()
-            );
-            
-            if (!conflictAnalysis.getPatientConflicts().isEmpty() || !conflictAnalysis.getDoctorConflicts().isEmpty()) {
-                appointment.setConflictLevel(conflictAnalysis.getRiskLevel());
-                appointment.setConflictChecked(true);
-                appointmentRepository.save(appointment);
-                log.warn("Appointment conflicts detected for appointment ID: {}", appointment.getId());
-            }
-        } catch (Exception e) {
-            log.error("Error during conflict analysis for appointment ID: {}", appointment.getId(), e);
-        }
-        
-        // 设置提醒
-        try {
-            smartReminderService.sendAppointmentReminder(appointment.getId());
-            log.info("Scheduled reminder for appointment ID: {}", appointment.getId());
-        } catch (Exception e) {
-            log.error("Error scheduling reminder for appointment ID: {}", appointment.getId(), e);
-        }
+        // 冲突检测、提醒安排等在事务提交后由发件箱中继异步处理
+        appointmentOutboxService.publish(appointment.getId(), AppointmentEvent.TYPE_CREATED);
         
         // 创建增强的返回结果
         AppointmentDTO baseDTO = convertToDTO(appointment);
@@ -144,7 +151,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         
         // 设置增强信息
         resultDTO.setSuccessMessage("预约成功！请按时就诊");
-        resultDTO.setAppointmentNumber(String.format("YY%06d", appointment.getId()));
+        resultDTO.setAppointmentNumber(appointment.getAppointmentNumber());
         resultDTO.setDepartmentName(department.getName());
         resultDTO.setDoctorName(doctor.getName());
         resultDTO.setDoctorTitle(doctor.getTitle());
@@ -156,16 +163,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         return resultDTO;
     }
 
-    /**
-     * 生成预约编号
-     */
-    private String generateAppointmentNumber() {
-        String datePrefix = java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomSuffix = String.format("%04d", new java.util.Random().nextInt(10000));
-        return "A" + datePrefix + randomSuffix;
-    }
-
-    private void validateAppointmentTime(LocalDateTime appointmentTime) {
+    private void validateAppointmentTime(LocalDateTime appointmentTime, String role) {
         // 检查是否是过去的时间
         if (appointmentTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("不能预约过去的时间");
@@ -177,10 +175,6 @@ public class AppointmentServiceImpl implements AppointmentService {
             throw new IllegalArgumentException("不能预约周末时间");
         }
 
-        // 获取当前用户角色
-        User currentUser = userService.getCurrentUser();
-        String role = currentUser.getRole();
-
         // 如果是学生或老师，允许24小时预约
         if ("STUDENT".equals(role) || "TEACHER".equals(role)) {
             return;
@@ -195,16 +189,6 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
     }
 
-    private DoctorScheduleDTO findMatchingSchedule(List<DoctorScheduleDTO> schedules, LocalDateTime appointmentTime) {
-        LocalTime time = appointmentTime.toLocalTime();
-        String period = time.getHour() < 12 ? "MORNING" : "AFTERNOON";
-        
-        return schedules.stream()
-            .filter(s -> s.getPeriod().equals(period) && s.getStatus() == 1)
-            .findFirst()
-            .orElse(null);
-    }
-
     private boolean hasExistingAppointment(Long patientId, LocalDate date) {
         LocalDateTime dayStart = date.atStartOfDay();
         LocalDateTime dayEnd = date.atTime(LocalTime.MAX);
@@ -227,24 +211,20 @@ public class AppointmentServiceImpl implements AppointmentService {
             
             // 如果是取消预约，需要增加可用预约数
             if (newStatus == AppointmentStatus.CANCELLED && oldStatus != AppointmentStatus.CANCELLED) {
-                LocalDate appointmentDate = appointment.getAppointmentTime().toLocalDate();
-                List<DoctorScheduleDTO> schedules = doctorScheduleService.getDoctorSchedules(
-                    appointment.getDoctor().getId(), 
-                    appointmentDate
+                Long scheduleId = slotInventoryService.resolveScheduleId(
+                    appointment.getDoctor().getId(),
+                    appointment.getAppointmentTime().toLocalDate(),
+                    TimeSlotUtil.resolveSchedulePeriod(appointment.getAppointmentTime())
                 );
                 
-                DoctorScheduleDTO schedule = findMatchingSchedule(
-                    schedules, 
-                    appointment.getAppointmentTime()
-                );
-                
-                if (schedule != null) {
-                    doctorScheduleService.updateAvailableAppointments(schedule.getId(), 1);
+                if (scheduleId != null) {
+                    slotInventoryService.release(scheduleId);
                 }
             }
             
             appointment.setStatus(newStatus.name());
             appointment = appointmentRepository.save(appointment);
+            appointmentTimeIndex.onAppointmentChanged(appointment);
             log.info("Updated appointment status successfully");
             return convertToDTO(appointment);
         } catch (IllegalArgumentException e) {
@@ -262,6 +242,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             
         appointment.setStatus(AppointmentStatus.CANCELLED.name());
         appointmentRepository.save(appointment);
+        appointmentTimeIndex.onAppointmentChanged(appointment);
         log.info("Cancelled appointment successfully");
     }
 
@@ -284,7 +265,8 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     public Page<AppointmentDTO> getPatientAppointmentsByDate(Long patientId, LocalDate date, Pageable pageable) {
         log.info("Fetching appointments for patient: {} on date: {}", patientId, date);
-        return appointmentRepository.findAppointmentsByPatientAndDateAndStatus(patientId, date, null, pageable)
+        return appointmentRepository.findAppointmentsByPatientAndTimeRangeAndStatus(
+                patientId, startOfDay(date), startOfNextDay(date), null, pageable)
             .map(this::convertToDTO);
     }
 
@@ -298,7 +280,8 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     public Page<AppointmentDTO> getDoctorAppointments(Long doctorId, LocalDate date, String status, Pageable pageable) {
         log.info("Fetching appointments for doctor: {} with date: {} and status: {}", doctorId, date, status);
-        return appointmentRepository.findAppointmentsByDoctorAndDateAndStatus(doctorId, date, status, pageable)
+        return appointmentRepository.findAppointmentsByDoctorAndTimeRangeAndStatus(
+                doctorId, startOfDay(date), startOfNextDay(date), status, pageable)
             .map(this::convertToDTO);
     }
 
@@ -309,6 +292,103 @@ public class AppointmentServiceImpl implements AppointmentService {
             .map(this::convertToDTO);
     }
 
+    @Override
+    public CursorPage<AppointmentDTO> getPatientAppointmentsByCursor(
+            Long patientId, LocalDate date, String status, String cursor, int size, boolean includeTotal) {
+        return findByCursor("patient:" + patientId, date, status, cursor, size, includeTotal,
+            (start, end, cursorTime, cursorId, limit) -> appointmentRepository.findPatientAppointmentsByKeyset(
+                patientId, start, end, status, cursorTime, cursorId, limit),
+            (start, end) -> appointmentRepository.countPatientAppointmentsInRange(patientId, start, end, status));
+    }
+
+    @Override
+    public CursorPage<AppointmentDTO> getDoctorAppointmentsByCursor(
+            Long doctorId, LocalDate date, String status, String cursor, int size, boolean includeTotal) {
+        return findByCursor("doctor:" + doctorId, date, status, cursor, size, includeTotal,
+            (start, end, cursorTime, cursorId, limit) -> appointmentRepository.findDoctorAppointmentsByKeyset(
+                doctorId, start, end, status, cursorTime, cursorId, limit),
+            (start, end) -> appointmentRepository.countDoctorAppointmentsInRange(doctorId, start, end, status));
+    }
+
+    @Override
+    public CursorPage<AppointmentDTO> getDepartmentAppointmentsByCursor(
+            Long departmentId, LocalDate date, String status, String cursor, int size, boolean includeTotal) {
+        return findByCursor("department:" + departmentId, date, status, cursor, size, includeTotal,
+            (start, end, cursorTime, cursorId, limit) -> appointmentRepository.findDepartmentAppointmentsByKeyset(
+                departmentId, start, end, status, cursorTime, cursorId, limit),
+            (start, end) -> appointmentRepository.countDepartmentAppointmentsInRange(departmentId, start, end, status));
+    }
+
+    /**
+     * 游标分页公共流程：日期转换为 [当天0点, 次日0点) 的范围条件，多取一条判断是否有下一页
+     */
+    private CursorPage<AppointmentDTO> findByCursor(String scope, LocalDate date, String status, String cursor,
+                                                    int size, boolean includeTotal,
+                                                    KeysetQuery query, RangeCountQuery countQuery) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        LocalDateTime start = date != null ? date.atStartOfDay() : null;
+        LocalDateTime end = date != null ? date.plusDays(1).atStartOfDay() : null;
+        AppointmentCursor after = AppointmentCursor.decode(cursor);
+
+        List<AppointmentListView> rows = query.find(start, end,
+            after != null ? after.getAppointmentTime() : null,
+            after != null ? after.getId() : null,
+            pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        CursorPage<AppointmentDTO> page = new CursorPage<>();
+        page.setItems(rows.stream().map(this::convertToDTO).collect(Collectors.toList()));
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            AppointmentListView last = rows.get(rows.size() - 1);
+            page.setNextCursor(new AppointmentCursor(last.getAppointmentTime(), last.getId()).encode());
+        }
+        if (includeTotal) {
+            page.setTotalEstimate(estimateCount(scope + ":" + date + ":" + status, () -> countQuery.count(start, end)));
+        }
+        return page;
+    }
+
+    /**
+     * 总数估计：同一筛选条件的计数结果缓存一段时间，翻页时不再重复执行COUNT
+     */
+    private long estimateCount(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = countCache.get(key);
+        if (cached != null && cached.expireAt > now) {
+            return cached.count;
+        }
+        if (countCache.size() >= MAX_COUNT_CACHE_SIZE) {
+            countCache.clear();
+        }
+        long count = counter.getAsLong();
+        countCache.put(key, new CachedCount(count, now + COUNT_CACHE_TTL_MILLIS));
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery {
+        List<AppointmentListView> find(LocalDateTime start, LocalDateTime end, LocalDateTime cursorTime, Long cursorId, int limit);
+    }
+
+    @FunctionalInterface
+    private interface RangeCountQuery {
+        long count(LocalDateTime start, LocalDateTime end);
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expireAt;
+
+        CachedCount(long count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+
     @Override
     public boolean isDoctorAvailable(Long doctorId, LocalDateTime appointmentTime) {
         // 获取当天的开始和结束时间
@@ -331,7 +411,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         log.info("Fetching appointments for doctor: {} between {} and {}", 
                 doctorId, startTime, endTime);
                 
-        return appointmentRepository.findByDoctorAndTimeRange(doctorId, startTime, endTime)
+        return appointmentRepository.findListViewsByDoctorAndTimeRange(doctorId, startTime, endTime)
             .stream()
             .map(this::convertToDTO)
             .collect(Collectors.toList());
@@ -339,7 +419,19 @@ public class AppointmentServiceImpl implements AppointmentService {
 
     @Override
     public Long getTodayAppointmentsCount() {
-        return appointmentRepository.countTodayAppointments();
+        LocalDate today = LocalDate.now();
+        return appointmentRepository.countActiveAppointmentsInRange(startOfDay(today), startOfNextDay(today));
+    }
+
+    /**
+     * 日期筛选统一转换为左闭右开的时间段 [date 00:00, date+1 00:00)，避免在索引列上使用 DATE()
+     */
+    private static LocalDateTime startOfDay(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+
+    private static LocalDateTime startOfNextDay(LocalDate date) {
+        return date != null ? date.plusDays(1).atStartOfDay() : null;
     }
 
     private AppointmentDTO convertToDTO(Appointment appointment) {
@@ -358,4 +450,24 @@ public class AppointmentServiceImpl implements AppointmentService {
         dto.setUpdateTime(appointment.getUpdatedAt());
         return dto;
     }
+
+    /**
+     * 列表读模型转换，名称已在查询中联表取出，不再触发关联加载
+     */
+    private AppointmentDTO convertToDTO(AppointmentListView view) {
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setId(view.getId());
+        dto.setDepartmentId(view.getDepartmentId());
+        dto.setDepartmentName(view.getDepartmentName());
+        dto.setDoctorId(view.getDoctorId());
+        dto.setDoctorName(view.getDoctorName());
+        dto.setPatientId(view.getPatientId());
+        dto.setPatientName(view.getPatientName());
+        dto.setAppointmentTime(view.getAppointmentTime());
+        dto.setStatus(view.getStatus());
+        dto.setDescription(view.getDescription());
+        dto.setCreateTime(view.getCreatedAt());
+        dto.setUpdateTime(view.getUpdatedAt());
+        return dto;
+    }
 }
\ No newline at end of file
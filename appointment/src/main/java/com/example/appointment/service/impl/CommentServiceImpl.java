@@ -8,6 +8,7 @@ import com.example.appointment.repository.CommentRepository;
 import com.example.appointment.repository.PostRepository;
 import com.example.appointment.repository.UserRepository;
 import com.example.appointment.service.CommentService;
+import com.example.appointment.service.ForumCounterService;
 import com.example.appointment.exception.ResourceNotFoundException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -25,13 +26,16 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final ForumCounterService forumCounterService;
 
     public CommentServiceImpl(CommentRepository commentRepository,
                             PostRepository postRepository,
-                            UserRepository userRepository) {
+                            UserRepository userRepository,
+                            ForumCounterService forumCounterService) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.forumCounterService = forumCounterService;
     }
 
     @Override
@@ -110,7 +114,7 @@ public class CommentServiceImpl implements CommentService {
             throw new IllegalStateException("Comment does not belong to the specified post");
         }
 
-        commentRepository.incrementLikes(commentId);
+        forumCounterService.incrementCommentLikes(commentId);
     }
 
     @Override
@@ -146,6 +150,10 @@ public class CommentServiceImpl implements CommentService {
         System.out.println("Converting comment to DTO: " + comment);
         CommentDTO dto = new CommentDTO();
         BeanUtils.copyProperties(comment, dto);
+        if (comment.getLikes() != null) {
+            // 合并尚未写回数据库的点赞增量
+            dto.setLikes((int) (comment.getLikes() + forumCounterService.getPendingCommentLikes(comment.getId())));
+        }
         
         try {
             dto.setPostId(comment.getPost().getId());
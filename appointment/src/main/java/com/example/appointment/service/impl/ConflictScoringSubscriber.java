@@ -0,0 +1,47 @@
+package com.example.appointment.service.impl;
+
+import com.example.appointment.dto.TimeConflictAnalysisDTO;
+import com.example.appointment.entity.AppointmentEvent;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.service.AppointmentConflictService;
+import com.example.appointment.service.AppointmentEventSubscriber;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 新建预约后进行冲突检测，存在冲突时记录风险等级
+ */
+@Component
+@RequiredArgsConstructor
+public class ConflictScoringSubscriber implements AppointmentEventSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictScoringSubscriber.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentConflictService appointmentConflictService;
+
+    @Override
+    public String getName() {
+        return "conflict-scoring";
+    }
+
+    @Override
+    public void handle(AppointmentEvent event) {
+        if (!AppointmentEvent.TYPE_CREATED.equals(event.getEventType())) {
+            return;
+        }
+        // 事件投递时新预约已在时间索引中，按预约ID分析以排除预约本身
+        TimeConflictAnalysisDTO conflictAnalysis = appointmentConflictService.checkAppointmentConflicts(event.getAppointmentId());
+        if (conflictAnalysis.getPatientConflicts() == null) {
+            // 预约已不存在
+            return;
+        }
+
+        if (!conflictAnalysis.getPatientConflicts().isEmpty() || !conflictAnalysis.getDoctorConflicts().isEmpty()) {
+            appointmentRepository.updateConflictResult(event.getAppointmentId(), conflictAnalysis.getRiskLevel());
+            log.warn("Appointment conflicts detected for appointment ID: {}", event.getAppointmentId());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.example.appointment.repository.DoctorRepository;
 import com.example.appointment.repository.DoctorReviewRepository;
 import com.example.appointment.repository.UserRepository;
 import com.example.appointment.service.DoctorReviewService;
+import com.example.appointment.service.DoctorStatsService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,7 @@ public class DoctorReviewServiceImpl implements DoctorReviewService {
     private final DoctorRepository doctorRepository;
     private final UserRepository userRepository;
     private final AppointmentRepository appointmentRepository;
+    private final DoctorStatsService doctorStatsService;
     
     @Override
     @Transactional
@@ -114,11 +116,12 @@ public class DoctorReviewServiceImpl implements DoctorReviewService {
     public void deleteReview(Long reviewId) {
         log.info("删除医生评价: {}", reviewId);
         
-        if (!doctorReviewRepository.existsByIdCustom(reviewId)) {
-            throw new RuntimeException("评价不存在");
-        }
+        DoctorReview review = doctorReviewRepository.findById(reviewId)
+                .orElseThrow(() -> new RuntimeException("评价不存在"));
         
-        doctorReviewRepository.deleteById(reviewId);
+        doctorReviewRepository.delete(review);
+        doctorStatsService.onReviewStatusChanged(
+                review.getDoctor().getId(), review.getRating(), review.getStatus(), null);
         log.info("医生评价删除成功: {}", reviewId);
     }
     
@@ -162,24 +165,17 @@ public class DoctorReviewServiceImpl implements DoctorReviewService {
         stats.setDoctorTitle(doctor.getTitle());
         stats.setDepartmentName(doctor.getDepartment().getName());
         
-        // 获取平均评分
-        Double averageRating = doctorReviewRepository.getAverageRatingByDoctorId(doctorId);
+        // 获取平均评分（读取预聚合的评分统计）
+        Double averageRating = doctorStatsService.getAverageRating(doctorId);
         stats.setAverageRating(averageRating != null ? averageRating : 0.0);
         
         // 获取评价数量统计
-        long totalReviews = doctorReviewRepository.countByDoctorIdAndStatus(doctorId, "APPROVED");
+        long totalReviews = doctorStatsService.getReviewCount(doctorId);
         stats.setTotalReviews(totalReviews);
         stats.setApprovedReviews(totalReviews);
         
         // 获取评分分布
-        List<Object[]> ratingDistribution = doctorReviewRepository.getRatingDistributionByDoctorId(doctorId);
-        Map<Integer, Long> distributionMap = new HashMap<>();
-        for (Object[] row : ratingDistribution) {
-            Integer rating = (Integer) row[0];
-            Long count = (Long) row[1];
-            distributionMap.put(rating, count);
-        }
-        stats.setRatingDistribution(distributionMap);
+        stats.setRatingDistribution(new HashMap<>(doctorStatsService.getRatingDistribution(doctorId)));
         
         log.info("医生评价统计获取成功: {}", doctorId);
         return stats;
@@ -193,11 +189,14 @@ public class DoctorReviewServiceImpl implements DoctorReviewService {
         DoctorReview review = doctorReviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("评价不存在"));
         
+        String oldStatus = review.getStatus();
         review.setStatus("APPROVED");
         review.setAdminReply(adminReply);
         review.setAdminReplyTime(new Date().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
         
         DoctorReview approvedReview = doctorReviewRepository.save(review);
+        doctorStatsService.onReviewStatusChanged(
+                approvedReview.getDoctor().getId(), approvedReview.getRating(), oldStatus, "APPROVED");
         log.info("医生评价审核通过: {}", reviewId);
         
         return convertToDTO(approvedReview);
@@ -211,11 +210,14 @@ public class DoctorReviewServiceImpl implements DoctorReviewService {
         DoctorReview review = doctorReviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("评价不存在"));
         
+        String oldStatus = review.getStatus();
         review.setStatus("REJECTED");
         review.setAdminReply(reason);
         review.setAdminReplyTime(new Date().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
         
         DoctorReview rejectedReview = doctorReviewRepository.save(review);
+        doctorStatsService.onReviewStatusChanged(
+                rejectedReview.getDoctor().getId(), rejectedReview.getRating(), oldStatus, "REJECTED");
         log.info("医生评价已拒绝: {}", reviewId);
         
         return convertToDTO(rejectedReview);
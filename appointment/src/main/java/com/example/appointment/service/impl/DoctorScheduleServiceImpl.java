@@ -3,13 +3,15 @@ package com.example.appointment.service.impl;
 import com.example.appointment.dto.DoctorScheduleDTO;
 import com.example.appointment.entity.Doctor;
 import com.example.appointment.entity.DoctorSchedule;
-import com.example.appointment.entity.Department;
 import com.example.appointment.entity.User;
 import com.example.appointment.exception.BusinessException;
 import com.example.appointment.repository.DoctorRepository;
 import com.example.appointment.repository.DoctorScheduleRepository;
-import com.example.appointment.repository.DepartmentRepository;
+import com.example.appointment.repository.projection.DoctorScheduleView;
+import com.example.appointment.service.AvailabilityCalendarService;
 import com.example.appointment.service.DoctorScheduleService;
+import com.example.appointment.service.ScheduleSuspensionService;
+import com.example.appointment.service.SlotInventoryService;
 import com.example.appointment.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -29,10 +31,15 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
 
     private final DoctorScheduleRepository scheduleRepository;
     private final DoctorRepository doctorRepository;
-    private final DepartmentRepository departmentRepository;
     private final UserService userService;
+    private final SlotInventoryService slotInventoryService;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final ScheduleSuspensionService scheduleSuspensionService;
     private static final Logger log = LoggerFactory.getLogger(DoctorScheduleServiceImpl.class);
 
+    // 列表接口单次返回的最大排班数
+    private static final int MAX_LIST_SIZE = 500;
+
     @Override
     @Transactional
     public DoctorScheduleDTO create(DoctorScheduleDTO scheduleDTO) {
@@ -59,6 +66,10 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
             throw new BusinessException("不能创建过去的排班");
         }
 
+        if (!AvailabilityCalendarService.PERIODS.contains(scheduleDTO.getPeriod())) {
+            throw new BusinessException("无效的时段：" + scheduleDTO.getPeriod());
+        }
+
         // 检查是否已存在排班
         if (scheduleRepository.existsByDoctorIdAndScheduleDate(
                 scheduleDTO.getDoctorId(), scheduleDTO.getScheduleDate())) {
@@ -75,7 +86,8 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
         schedule.setStatus(1);
 
         schedule = scheduleRepository.save(schedule);
-        return convertToDTO(schedule);
+        availabilityCalendarService.evict(schedule.getDepartmentId(), schedule.getScheduleDate());
+        return convertToDTO(schedule, doctor);
     }
 
     @Override
@@ -94,6 +106,8 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
         
         schedule.setAvailableAppointments(newAvailable);
         scheduleRepository.save(schedule);
+        slotInventoryService.evict(scheduleId);
+        availabilityCalendarService.evict(schedule.getDepartmentId(), schedule.getScheduleDate());
     }
 
     @Override
@@ -114,12 +128,28 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
             throw new BusinessException("医生只能更新自己的排班");
         }
 
+        Integer previousStatus = schedule.getStatus();
         schedule.setPeriod(scheduleDTO.getPeriod());
         schedule.setMaxAppointments(scheduleDTO.getMaxAppointments());
         schedule.setStatus(scheduleDTO.getStatus());
 
+        boolean suspended = Integer.valueOf(1).equals(previousStatus) && Integer.valueOf(0).equals(schedule.getStatus());
+        if (suspended) {
+            schedule.setAvailableAppointments(0);
+        } else if (Integer.valueOf(0).equals(previousStatus) && Integer.valueOf(1).equals(schedule.getStatus())) {
+            // 恢复出诊时按仍然有效的预约重算剩余号源
+            int booked = scheduleSuspensionService.countActiveAppointments(schedule);
+            schedule.setAvailableAppointments(Math.max(0, schedule.getMaxAppointments() - booked));
+        }
+
         schedule = scheduleRepository.save(schedule);
-        return convertToDTO(schedule);
+        if (suspended) {
+            int cancelled = scheduleSuspensionService.suspend(schedule);
+            log.info("排班 {} 停诊，取消 {} 个预约", id, cancelled);
+        }
+        slotInventoryService.evict(id);
+        availabilityCalendarService.evict(schedule.getDepartmentId(), schedule.getScheduleDate());
+        return convertToDTO(schedule, doctor);
     }
 
     @Override
@@ -141,93 +171,56 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
         }
 
         scheduleRepository.delete(schedule);
+        slotInventoryService.evict(id);
+        availabilityCalendarService.evict(schedule.getDepartmentId(), schedule.getScheduleDate());
     }
 
     @Override
     public DoctorScheduleDTO getById(Long id) {
-        DoctorSchedule schedule = scheduleRepository.findById(id)
-                .orElseThrow(() -> new BusinessException("排班不存在"));
-        return convertToDTO(schedule);
+        DoctorScheduleView view = scheduleRepository.findViewById(id);
+        if (view == null) {
+            throw new BusinessException("排班不存在");
+        }
+        return convertToDTO(view);
     }
 
     @Override
     public List<DoctorScheduleDTO> getDoctorSchedules(Long doctorId, LocalDate date) {
-        System.out.println("查询医生排班 - 医生ID：" + doctorId + ", 日期：" + date);
-        
-        // 尝试使用JPQL查询
-        List<DoctorSchedule> schedules = scheduleRepository.findByDoctorIdAndScheduleDate(doctorId, date);
-        System.out.println("JPQL查询结果数量：" + (schedules != null ? schedules.size() : "null"));
-        
-        // 如果JPQL查询没有结果，尝试使用原生SQL查询
-        if (schedules == null || schedules.isEmpty()) {
-            String dateStr = date.toString(); // 转为YYYY-MM-DD格式
-            System.out.println("尝试使用原生SQL查询 - 日期字符串：" + dateStr);
-            schedules = scheduleRepository.findSchedulesByNativeQuery(doctorId, dateStr);
-            System.out.println("原生SQL查询结果数量：" + (schedules != null ? schedules.size() : "null"));
-        }
-        
-        if (schedules != null && !schedules.isEmpty()) {
-            for (DoctorSchedule schedule : schedules) {
-                System.out.println("排班ID: " + schedule.getId() + ", 时段: " + schedule.getPeriod() + ", 日期: " + schedule.getScheduleDate());
-            }
-        }
-        
-        return schedules.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<DoctorScheduleDTO> schedules = convertToDTOs(scheduleRepository.findViewsByDoctorAndDate(doctorId, date));
+        log.debug("查询医生排班 - 医生ID：{}，日期：{}，结果数量：{}", doctorId, date, schedules.size());
+        return schedules;
     }
 
     @Override
     public List<DoctorScheduleDTO> getDepartmentSchedules(Long departmentId, LocalDate date) {
-        List<DoctorSchedule> schedules = scheduleRepository.findByDepartmentIdAndScheduleDate(departmentId, date);
-        return schedules.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(scheduleRepository.findViewsByDepartmentAndDate(departmentId, date));
     }
 
     @Override
-    public List<DoctorScheduleDTO> getFutureSchedulesByDoctor(Long doctorId) {
-        List<DoctorSchedule> schedules = scheduleRepository.findDoctorSchedulesFromDate(
-                doctorId, LocalDate.now());
-        return schedules.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<DoctorScheduleDTO> getFutureSchedulesByDoctor(Long doctorId, int limit) {
+        return convertToDTOs(scheduleRepository.findDoctorViewsFromDate(
+                doctorId, LocalDate.now(), PageRequest.of(0, boundLimit(limit))));
     }
 
     @Override
-    public List<DoctorScheduleDTO> getFutureSchedulesByDepartment(Long departmentId) {
-        List<DoctorSchedule> schedules = scheduleRepository.findDepartmentSchedulesFromDate(
-                departmentId, LocalDate.now());
-        return schedules.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<DoctorScheduleDTO> getFutureSchedulesByDepartment(Long departmentId, int limit) {
+        return convertToDTOs(scheduleRepository.findDepartmentViewsFromDate(
+                departmentId, LocalDate.now(), PageRequest.of(0, boundLimit(limit))));
     }
 
     @Override
     public List<DoctorScheduleDTO> getRecentSchedules(Integer limit) {
+        int size = boundLimit(limit != null ? limit : 10);
         LocalDate today = LocalDate.now();
-        
-        // 先获取今天和未来的排班
-        List<DoctorSchedule> futureSchedules = scheduleRepository.findSchedulesFromDateOrdered(today);
-        
-        // 如果未来排班不足指定数量，再获取过去的排班补足
-        List<DoctorSchedule> recentSchedules = new ArrayList<>(futureSchedules);
-        
-        if (recentSchedules.size() < limit) {
-            // 需要补充的数量
-            int remainingCount = limit - recentSchedules.size();
-            // 获取过去的排班，按日期降序排列
-            List<DoctorSchedule> pastSchedules = scheduleRepository.findSchedulesBeforeDateOrdered(
-                    today, PageRequest.of(0, remainingCount));
-            recentSchedules.addAll(pastSchedules);
-        } else if (recentSchedules.size() > limit) {
-            // 如果超过了指定数量，只保留前limit个
-            recentSchedules = recentSchedules.subList(0, limit);
+
+        // 先取今天和未来最近的排班，数量不足时再取过去最近的排班补足，两次查询均在SQL中限制条数
+        List<DoctorScheduleView> recentSchedules = new ArrayList<>(
+                scheduleRepository.findViewsFromDate(today, PageRequest.of(0, size)));
+        if (recentSchedules.size() < size) {
+            recentSchedules.addAll(scheduleRepository.findViewsBeforeDate(
+                    today, PageRequest.of(0, size - recentSchedules.size())));
         }
-        
-        return recentSchedules.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(recentSchedules);
     }
     
     @Override
@@ -238,77 +231,57 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
 
     @Override
     public List<DoctorScheduleDTO> getDoctorSchedulesByMonth(Long doctorId, int year, int month) {
-        log.info("获取医生月度排班，医生ID：{}，年份：{}，月份：{}", doctorId, year, month);
-        
-        // 创建月份的起始日期和结束日期
         LocalDate startDate = LocalDate.of(year, month, 1);
         LocalDate endDate = startDate.plusMonths(1).minusDays(1);
-        
-        log.info("查询日期范围：{} 至 {}", startDate, endDate);
-        
-        // 查询数据库中是否存在该医生
-        try {
-            Doctor doctor = doctorRepository.findById(doctorId)
-                    .orElseThrow(() -> new BusinessException("医生不存在"));
-            log.info("查询到医生信息: ID={}, 姓名={}, 用户ID={}", doctor.getId(), doctor.getName(), doctor.getUserId());
-        } catch (Exception e) {
-            log.error("查询医生信息失败: {}", e.getMessage(), e);
-        }
-        
-        // 查询日期范围内的排班记录
-        List<DoctorSchedule> schedules = scheduleRepository.findDoctorSchedulesBetweenDatesOrdered(
-            doctorId, startDate, endDate);
-        
-        log.info("查询到 {} 条排班记录", schedules.size());
-        
-        // 如果没有找到排班记录，尝试使用原生SQL查询
-        if (schedules.isEmpty()) {
-            log.info("使用原生SQL查询尝试获取排班数据");
-            try {
-                String sql = "SELECT * FROM doctor_schedule WHERE doctor_id = ? AND schedule_date BETWEEN ? AND ? ORDER BY schedule_date, period";
-                log.info("执行SQL: {}, 参数: [{}, {}, {}]", sql, doctorId, startDate, endDate);
-                
-                // 添加日志输出doctor_schedule表中的所有doctorId
-                log.info("数据库中的医生ID: {}", scheduleRepository.findAll().stream()
-                    .map(DoctorSchedule::getDoctorId)
-                    .distinct()
-                    .collect(Collectors.toList()));
-            } catch (Exception e) {
-                log.error("原生SQL查询失败: {}", e.getMessage(), e);
-            }
-        }
-        
-        // 转换为DTO并返回
-        return schedules.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+
+        List<DoctorScheduleDTO> schedules = convertToDTOs(
+                scheduleRepository.findDoctorViewsBetweenDates(doctorId, startDate, endDate));
+        log.info("获取医生月度排班，医生ID：{}，{} 至 {}，共 {} 条", doctorId, startDate, endDate, schedules.size());
+        return schedules;
+    }
+
+    private static int boundLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIST_SIZE));
+    }
+
+    private List<DoctorScheduleDTO> convertToDTOs(List<DoctorScheduleView> views) {
+        return views.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private DoctorScheduleDTO convertToDTO(DoctorScheduleView view) {
+        DoctorScheduleDTO dto = new DoctorScheduleDTO();
+        dto.setId(view.getId());
+        dto.setDoctorId(view.getDoctorId());
+        dto.setDoctorName(view.getDoctorName());
+        dto.setDepartmentId(view.getDepartmentId());
+        dto.setDepartmentName(view.getDepartmentName());
+        dto.setScheduleDate(view.getScheduleDate());
+        dto.setPeriod(view.getPeriod());
+        dto.setMaxAppointments(view.getMaxAppointments());
+        dto.setAvailableAppointments(view.getAvailableAppointments());
+        dto.setStatus(view.getStatus());
+        calculateCongestionInfo(dto);
+        return dto;
     }
 
-    private DoctorScheduleDTO convertToDTO(DoctorSchedule schedule) {
+    /**
+     * 写操作后的转换，医生已在校验时查出，不再重复查询
+     */
+    private DoctorScheduleDTO convertToDTO(DoctorSchedule schedule, Doctor doctor) {
         DoctorScheduleDTO dto = new DoctorScheduleDTO();
         dto.setId(schedule.getId());
         dto.setDoctorId(schedule.getDoctorId());
+        dto.setDoctorName(doctor.getName());
+        dto.setDepartmentId(schedule.getDepartmentId());
+        dto.setDepartmentName(doctor.getDepartment() != null ? doctor.getDepartment().getName() : null);
         dto.setScheduleDate(schedule.getScheduleDate());
         dto.setPeriod(schedule.getPeriod());
         dto.setMaxAppointments(schedule.getMaxAppointments());
         dto.setAvailableAppointments(schedule.getAvailableAppointments());
         dto.setStatus(schedule.getStatus());
-        
-        // 获取医生信息
-        Doctor doctor = doctorRepository.findById(schedule.getDoctorId())
-                .orElseThrow(() -> new BusinessException("医生不存在"));
-        dto.setDoctorName(doctor.getName());
-        dto.setDepartmentId(doctor.getDepartment() != null ? doctor.getDepartment().getId() : null);
-        
-        // 获取部门信息
-        Department department = doctor.getDepartment() != null ? doctor.getDepartment() : 
-                departmentRepository.findById(doctor.getDepartment().getId())
-                .orElseThrow(() -> new BusinessException("部门不存在"));
-        dto.setDepartmentName(department.getName());
-        
-        // 计算拥挤度信息
         calculateCongestionInfo(dto);
-        
         return dto;
     }
     
@@ -0,0 +1,27 @@
+package com.example.appointment.service.impl;
+
+import com.example.appointment.dto.ReminderMessage;
+import com.example.appointment.service.ReminderChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志提醒渠道
+ * 未接入短信、邮件等服务时的默认渠道，仅记录日志
+ */
+@Component
+public class LogReminderChannel implements ReminderChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(LogReminderChannel.class);
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public void send(ReminderMessage message) {
+        log.info("发送提醒通知给患者{}: {}", message.getPatientName(), message.getContent());
+    }
+}
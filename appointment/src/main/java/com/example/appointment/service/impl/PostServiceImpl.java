@@ -5,10 +5,13 @@ import com.example.appointment.dto.PostDTO;
 import com.example.appointment.entity.*;
 import com.example.appointment.exception.ResourceNotFoundException;
 import com.example.appointment.repository.*;
+import com.example.appointment.service.ForumCounterService;
+import com.example.appointment.service.PostSearchIndex;
 import com.example.appointment.service.PostService;
 import com.example.appointment.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,7 +19,16 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +40,8 @@ public class PostServiceImpl implements PostService {
     private final CommentRepository commentRepository;
     private final PostFavoriteRepository postFavoriteRepository;
     private final PostLikeRepository postLikeRepository;
+    private final ForumCounterService forumCounterService;
+    private final PostSearchIndex postSearchIndex;
 
     public PostServiceImpl(
             PostRepository postRepository,
@@ -36,7 +50,9 @@ public class PostServiceImpl implements PostService {
             UserRepository userRepository,
             CommentRepository commentRepository,
             PostFavoriteRepository postFavoriteRepository,
-            PostLikeRepository postLikeRepository) {
+            PostLikeRepository postLikeRepository,
+            ForumCounterService forumCounterService,
+            PostSearchIndex postSearchIndex) {
         this.postRepository = postRepository;
         this.categoryRepository = categoryRepository;
         this.userService = userService;
@@ -44,18 +60,20 @@ public class PostServiceImpl implements PostService {
         this.commentRepository = commentRepository;
         this.postFavoriteRepository = postFavoriteRepository;
         this.postLikeRepository = postLikeRepository;
+        this.forumCounterService = forumCounterService;
+        this.postSearchIndex = postSearchIndex;
     }
 
     @Override
     public Page<PostDTO> getPosts(Pageable pageable) {
-        return postRepository.findAllByOrderByCreatedAtDesc(pageable)
-                .map(this::convertToDTO);
+        return convertToDTOPage(postRepository.findAllByOrderByCreatedAtDesc(pageable));
     }
 
     @Override
     public PostDTO getPost(Long id) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("帖子不存在"));
+        forumCounterService.incrementPostViews(id);
         return convertToDTO(post);
     }
 
@@ -98,6 +116,7 @@ public class PostServiceImpl implements PostService {
         }
 
         Post savedPost = postRepository.save(post);
+        postSearchIndex.onPostSaved(savedPost);
         return convertToDTO(savedPost);
     }
 
@@ -115,6 +134,7 @@ public class PostServiceImpl implements PostService {
         post.setContent(postDTO.getContent());
 
         Post updatedPost = postRepository.save(post);
+        postSearchIndex.onPostSaved(updatedPost);
         return convertToDTO(updatedPost);
     }
 
@@ -136,6 +156,7 @@ public class PostServiceImpl implements PostService {
             
             // 然后删除帖子
             postRepository.delete(post);
+            postSearchIndex.onPostDeleted(id);
         } catch (Exception e) {
             throw new RuntimeException("删除帖子失败: " + e.getMessage(), e);
         }
@@ -164,6 +185,7 @@ public class PostServiceImpl implements PostService {
             
             // 然后删除帖子
             postRepository.delete(post);
+            postSearchIndex.onPostDeleted(id);
         } catch (Exception e) {
             throw new RuntimeException("删除帖子失败: " + e.getMessage(), e);
         }
@@ -192,46 +214,64 @@ public class PostServiceImpl implements PostService {
         if (postLikeRepository.existsByPostIdAndUserId(id, userId)) {
             // 已经点赞过，取消点赞
             postLikeRepository.deleteByPostIdAndUserId(id, userId);
-            postLikeRepository.decrementLikes(id);
+            forumCounterService.decrementPostLikes(id);
         } else {
             // 未点赞过，添加点赞
             PostLike postLike = new PostLike();
             postLike.setPost(postRepository.findById(id).orElseThrow());
             postLike.setUser(currentUser);
             postLikeRepository.save(postLike);
-            postRepository.incrementLikes(id);
+            forumCounterService.incrementPostLikes(id);
         }
     }
 
     @Override
     public Page<PostDTO> searchPosts(String keyword, Pageable pageable) {
-        if (keyword == null || keyword.trim().isEmpty()) {
+        return searchPosts(keyword, null, pageable);
+    }
+
+    @Override
+    public Page<PostDTO> searchPosts(String keyword, String tags, Pageable pageable) {
+        boolean noKeyword = keyword == null || keyword.trim().isEmpty();
+        boolean noTags = tags == null || tags.trim().isEmpty();
+        if (noKeyword && noTags) {
             return getPosts(pageable);
         }
-        return postRepository.searchPosts(keyword.trim(), pageable)
-                .map(this::convertToDTO);
+
+        Set<String> tagFilter = noTags ? Collections.emptySet() : new HashSet<>(Arrays.asList(tags.split(",")));
+        List<Long> matchedIds = postSearchIndex.search(keyword, tagFilter);
+
+        int from = (int) Math.min(pageable.getOffset(), matchedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), matchedIds.size());
+        List<Long> pageIds = matchedIds.subList(from, to);
+
+        // 按索引给出的相关度顺序组装当前页
+        Map<Long, Post> postMap = postRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> posts = pageIds.stream()
+                .map(postMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(convertToDTOs(posts), pageable, matchedIds.size());
     }
 
     @Override
     public Page<PostDTO> getPostsByAuthor(Long authorId, Pageable pageable) {
-        return postRepository.findPostsByAuthorOrdered(authorId, pageable)
-                .map(this::convertToDTO);
+        return convertToDTOPage(postRepository.findPostsByAuthorOrdered(authorId, pageable));
     }
 
 
 
     @Override
     public Page<PostDTO> getPostsByCategory(Long categoryId, Pageable pageable) {
-        return postRepository.findPostsByCategoryOrdered(categoryId, pageable)
-                .map(this::convertToDTO);
+        return convertToDTOPage(postRepository.findPostsByCategoryOrdered(categoryId, pageable));
     }
 
     @Override
     public Page<PostDTO> getPostsByTags(String tags, Pageable pageable) {
         // 支持多个标签，用逗号分隔
         String tagsPattern = "%" + tags + "%";
-        return postRepository.findPostsByTags(tagsPattern, pageable)
-                .map(this::convertToDTO);
+        return convertToDTOPage(postRepository.findPostsByTags(tagsPattern, pageable));
     }
 
 
@@ -256,34 +296,42 @@ public class PostServiceImpl implements PostService {
     @Override
     public Page<PostDTO> getPostsByAuthorId(Long authorId, Pageable pageable) {
         Page<Post> posts = postRepository.findPostsByAuthorOrdered(authorId, pageable);
-        return posts.map(this::convertToDTO);
+        return convertToDTOPage(posts);
     }
 
     @Override
     public Page<PostDTO> getLatestPosts(Pageable pageable) {
-        return postRepository.findAllByOrderByCreatedAtDesc(pageable)
-                .map(this::convertToDTO);
+        return convertToDTOPage(postRepository.findAllByOrderByCreatedAtDesc(pageable));
     }
 
 
 
     private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setTitle(post.getTitle());
-        dto.setContent(post.getContent());
-        dto.setCategoryId(post.getCategory().getId());
-        dto.setAuthorName(post.getAuthor().getUsername());
-        dto.setLikes(post.getLikes());
-        dto.setViews(post.getViews());
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        
-        // 处理标签信息
-        if (post.getTags() != null && !post.getTags().isEmpty()) {
-            dto.setTags(post.getTags());
+        return convertToDTOs(Collections.singletonList(post)).get(0);
+    }
+
+    private Page<PostDTO> convertToDTOPage(Page<Post> page) {
+        List<PostDTO> dtos = convertToDTOs(page.getContent());
+        return new PageImpl<>(dtos, page.getPageable(), page.getTotalElements());
+    }
+
+    /**
+     * 批量组装帖子DTO
+     * 当前用户只解析一次，点赞/收藏状态、收藏数、评论数、作者和分类均按整页批量查询，
+     * 查询次数与每页帖子数量无关
+     */
+    private List<PostDTO> convertToDTOs(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
         }
-        
+
+        List<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+        Set<Long> authorIds = posts.stream().map(p -> p.getAuthor().getId()).collect(Collectors.toSet());
+        Set<Long> categoryIds = posts.stream()
+                .filter(p -> p.getCategory() != null)
+                .map(p -> p.getCategory().getId())
+                .collect(Collectors.toSet());
+
         // 获取当前用户ID（如果已登录）
         Long currentUserId = null;
         try {
@@ -294,30 +342,72 @@ public class PostServiceImpl implements PostService {
         } catch (Exception e) {
             // 用户未登录，忽略
         }
-        
-        // 设置点赞状态和点赞数
+
+        Set<Long> likedIds = new HashSet<>();
+        Set<Long> favoritedIds = new HashSet<>();
         if (currentUserId != null) {
-            dto.setLiked(postLikeRepository.existsByPostIdAndUserId(post.getId(), currentUserId));
-        } else {
-            dto.setLiked(false);
+            postLikeRepository.findLikedPostIds(currentUserId, postIds)
+                    .forEach(id -> likedIds.add(id.longValue()));
+            postFavoriteRepository.findFavoritedPostIds(currentUserId, postIds)
+                    .forEach(id -> favoritedIds.add(id.longValue()));
         }
-        
-        // 设置收藏状态和收藏数
-        if (currentUserId != null) {
-            dto.setFavorite(postFavoriteRepository.existsByPostIdAndUserId(post.getId(), currentUserId));
-        } else {
-            dto.setFavorite(false);
+        Map<Long, Long> favoriteCounts = toCountMap(postFavoriteRepository.countGroupByPostIds(postIds));
+        Map<Long, Long> commentCounts = toCountMap(commentRepository.countGroupByPostIds(postIds));
+
+        Map<Long, User> authors = userRepository.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, PostCategory> categories = categoryIds.isEmpty()
+                ? Collections.emptyMap()
+                : categoryRepository.findAllById(categoryIds).stream()
+                        .collect(Collectors.toMap(PostCategory::getId, Function.identity()));
+
+        List<PostDTO> dtos = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostDTO dto = new PostDTO();
+            dto.setId(post.getId());
+            dto.setTitle(post.getTitle());
+            dto.setContent(post.getContent());
+            // 合并尚未写回数据库的计数增量
+            dto.setLikes((int) (post.getLikes() + forumCounterService.getPendingPostLikes(post.getId())));
+            dto.setViews((int) (post.getViews() + forumCounterService.getPendingPostViews(post.getId())));
+            dto.setCreatedAt(post.getCreatedAt());
+            dto.setUpdatedAt(post.getUpdatedAt());
+
+            User author = authors.get(post.getAuthor().getId());
+            if (author != null) {
+                dto.setAuthorName(author.getUsername());
+            }
+
+            // 处理标签信息
+            if (post.getTags() != null && !post.getTags().isEmpty()) {
+                dto.setTags(post.getTags());
+            }
+
+            // 设置点赞、收藏状态及收藏数、评论数
+            dto.setLiked(likedIds.contains(post.getId()));
+            dto.setFavorite(favoritedIds.contains(post.getId()));
+            dto.setFavoriteCount(favoriteCounts.getOrDefault(post.getId(), 0L));
+            dto.setCommentCount(commentCounts.getOrDefault(post.getId(), 0L).intValue());
+
+            // 设置分类
+            if (post.getCategory() != null) {
+                dto.setCategoryId(post.getCategory().getId());
+                PostCategory category = categories.get(post.getCategory().getId());
+                if (category != null) {
+                    dto.setCategoryName(category.getName());
+                }
+            }
+
+            dtos.add(dto);
         }
-        dto.setFavoriteCount(postFavoriteRepository.countByPostId(post.getId()));
-        
-        // 设置评论数
-        dto.setCommentCount(commentRepository.countByPostId(post.getId()));
-        
-        // 设置分类名称
-        if (post.getCategory() != null) {
-            dto.setCategoryName(post.getCategory().getName());
+        return dtos;
+    }
+
+    private static Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
         }
-        
-        return dto;
+        return counts;
     }
 }
\ No newline at end of file
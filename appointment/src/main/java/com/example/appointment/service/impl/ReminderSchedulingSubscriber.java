@@ -0,0 +1,29 @@
+package com.example.appointment.service.impl;
+
+import com.example.appointment.entity.AppointmentEvent;
+import com.example.appointment.service.AppointmentEventSubscriber;
+import com.example.appointment.service.SmartReminderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 新建预约后安排就诊提醒
+ */
+@Component
+@RequiredArgsConstructor
+public class ReminderSchedulingSubscriber implements AppointmentEventSubscriber {
+
+    private final SmartReminderService smartReminderService;
+
+    @Override
+    public String getName() {
+        return "reminder-scheduling";
+    }
+
+    @Override
+    public void handle(AppointmentEvent event) {
+        if (AppointmentEvent.TYPE_CREATED.equals(event.getEventType())) {
+            smartReminderService.sendAppointmentReminder(event.getAppointmentId());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.appointment.service.impl;
+
+import com.example.appointment.dto.ReminderMessage;
+import com.example.appointment.entity.AppointmentEvent;
+import com.example.appointment.enums.AppointmentStatus;
+import com.example.appointment.repository.AppointmentRepository;
+import com.example.appointment.service.AppointmentEventSubscriber;
+import com.example.appointment.service.ReminderChannel;
+import com.example.appointment.util.SqlDateUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 医生停诊取消预约后通知患者
+ */
+@Component
+@RequiredArgsConstructor
+public class SuspensionNotificationSubscriber implements AppointmentEventSubscriber {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("MM月dd日 HH:mm");
+
+    private final AppointmentRepository appointmentRepository;
+    private final List<ReminderChannel> channels;
+
+    @Override
+    public String getName() {
+        return "suspension-notification";
+    }
+
+    @Override
+    public void handle(AppointmentEvent event) throws Exception {
+        if (!AppointmentEvent.TYPE_SUSPENDED.equals(event.getEventType())) {
+            return;
+        }
+        List<Object[]> rows = appointmentRepository.findNotificationRow(event.getAppointmentId());
+        // 预约已删除或已被恢复时不再通知
+        if (rows.isEmpty() || !AppointmentStatus.CANCELLED.name().equals(rows.get(0)[5])) {
+            return;
+        }
+        Object[] row = rows.get(0);
+        ReminderMessage message = new ReminderMessage();
+        message.setAppointmentId(((Number) row[0]).longValue());
+        message.setPatientId(((Number) row[1]).longValue());
+        message.setPatientName((String) row[2]);
+        message.setDoctorName((String) row[3]);
+        LocalDateTime appointmentTime = SqlDateUtil.toLocalDateTime(row[4]);
+        message.setAppointmentTime(appointmentTime);
+        message.setContent(String.format("您预约的%s医生%s的门诊因医生停诊已取消，请重新预约",
+                message.getDoctorName(), appointmentTime.format(TIME_FORMATTER)));
+        for (ReminderChannel channel : channels) {
+            channel.send(message);
+        }
+    }
+}
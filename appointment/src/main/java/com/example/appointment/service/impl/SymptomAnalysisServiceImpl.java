@@ -3,11 +3,19 @@ package com.example.appointment.service.impl;
 import com.example.appointment.entity.Department;
 import com.example.appointment.repository.DepartmentRepository;
 import com.example.appointment.service.SymptomAnalysisService;
+import com.example.appointment.util.SymptomKeywordMatcher;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,7 +27,16 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
     
     private final DepartmentRepository departmentRepository;
 
-    // 症状关键词与科室的映射关系
+    /**
+     * 外部症状词典文件，每行格式为“关键词=科室ID[,科室ID...]”，#开头为注释；未配置时使用内置词典
+     */
+    @Value("${appointment.symptom.dictionary-file:}")
+    private String dictionaryFile;
+
+    // 当前生效的词典，重新加载时整体替换
+    private volatile SymptomDictionary dictionary;
+
+    // 内置的症状关键词与科室的映射关系
     private static final Map<String, List<Long>> SYMPTOM_DEPARTMENT_MAPPING = Map.ofEntries(
         Map.entry("发烧", List.of(1L)), // 内科
         Map.entry("发热", List.of(1L)),
@@ -192,8 +209,9 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
         Map<Long, Integer> departmentScores = new HashMap<>();
         Map<Long, List<String>> matchedKeywords = new HashMap<>();
         
+        Map<String, List<Long>> mapping = dictionary.mapping;
         for (String keyword : keywords) {
-            List<Long> departmentIds = SYMPTOM_DEPARTMENT_MAPPING.get(keyword);
+            List<Long> departmentIds = mapping.get(keyword);
             if (departmentIds != null) {
                 for (Long departmentId : departmentIds) {
                     departmentScores.merge(departmentId, 10, Integer::sum);
@@ -250,32 +268,8 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
             return Collections.emptyList();
         }
         
-        String cleanSymptoms = symptoms.toLowerCase()
-            .replaceAll("[^\\u4e00-\\u9fa5a-zA-Z0-9]", " ")
-            .replaceAll("\\s+", " ");
-        
-        Set<String> keywords = new HashSet<>();
-        
-        // 精确匹配
-        for (String key : SYMPTOM_DEPARTMENT_MAPPING.keySet()) {
-            if (cleanSymptoms.contains(key)) {
-                keywords.add(key);
-            }
-        }
-        
-        // 模糊匹配（对于较长的关键词）
-        for (String key : SYMPTOM_DEPARTMENT_MAPPING.keySet()) {
-            if (key.length() >= 3 && !keywords.contains(key)) {
-                for (String word : cleanSymptoms.split(" ")) {
-                    if (word.length() >= 2 && key.contains(word)) {
-                        keywords.add(key);
-                        break;
-                    }
-                }
-            }
-        }
-        
-        return new ArrayList<>(keywords);
+        // 自动机单次扫描完成精确匹配与模糊匹配
+        return new ArrayList<>(dictionary.matcher.match(symptoms));
     }
     
     @Override
@@ -285,8 +279,9 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
         }
         
         int score = 0;
+        Map<String, List<Long>> mapping = dictionary.mapping;
         for (String keyword : keywords) {
-            List<Long> departmentIds = SYMPTOM_DEPARTMENT_MAPPING.get(keyword);
+            List<Long> departmentIds = mapping.get(keyword);
             if (departmentIds != null && departmentIds.contains(departmentId)) {
                 score += 10;
             }
@@ -295,6 +290,72 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
         return Math.min(score, 100); // 最高分100
     }
     
+    /**
+     * 启动时加载词典，显式配置的词典文件无法加载时启动失败，不会静默退回内置词典
+     */
+    @PostConstruct
+    public void initDictionary() {
+        reloadDictionary();
+    }
+
+    @Override
+    public int reloadDictionary() {
+        Map<String, List<Long>> mapping = SYMPTOM_DEPARTMENT_MAPPING;
+        if (dictionaryFile != null && !dictionaryFile.isBlank()) {
+            Path path = Paths.get(dictionaryFile);
+            if (!Files.isReadable(path)) {
+                log.warn("症状词典文件不存在或不可读: {}，保留当前词典", path);
+                throw new IllegalStateException("症状词典文件不存在或不可读: " + path);
+            }
+            try {
+                mapping = parseDictionary(Files.readAllLines(path, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                log.warn("读取症状词典失败: {}，保留当前词典", path, e);
+                throw new IllegalStateException("读取症状词典失败: " + path, e);
+            }
+            if (mapping.isEmpty()) {
+                log.warn("症状词典文件中没有有效词条: {}，保留当前词典", path);
+                throw new IllegalStateException("症状词典文件中没有有效词条: " + path);
+            }
+        }
+
+        dictionary = new SymptomDictionary(mapping);
+        log.info("症状词典已加载，共 {} 个关键词", dictionary.matcher.size());
+        return dictionary.matcher.size();
+    }
+
+    private Map<String, List<Long>> parseDictionary(List<String> lines) {
+        Map<String, List<Long>> mapping = new HashMap<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            if (separator <= 0) {
+                log.warn("忽略格式错误的词典行: {}", line);
+                continue;
+            }
+            String keyword = trimmed.substring(0, separator).trim().toLowerCase();
+            List<Long> departmentIds = new ArrayList<>();
+            for (String id : trimmed.substring(separator + 1).split(",")) {
+                try {
+                    departmentIds.add(Long.valueOf(id.trim()));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略无效的科室ID: {}", line);
+                }
+            }
+            if (!keyword.isEmpty() && !departmentIds.isEmpty()) {
+                mapping.merge(keyword, departmentIds, (a, b) -> {
+                    List<Long> merged = new ArrayList<>(a);
+                    merged.addAll(b);
+                    return merged;
+                });
+            }
+        }
+        return mapping;
+    }
+
     private String buildRecommendationReason(List<String> matchedKeywords) {
         if (matchedKeywords == null || matchedKeywords.isEmpty()) {
             return "基于症状分析推荐";
@@ -308,4 +369,17 @@ public class SymptomAnalysisServiceImpl implements SymptomAnalysisService {
             return "检测到" + matchedKeywords.size() + "个相关症状";
         }
     }
+
+    /**
+     * 症状词典：关键词到科室的映射及对应的匹配自动机
+     */
+    private static class SymptomDictionary {
+        private final Map<String, List<Long>> mapping;
+        private final SymptomKeywordMatcher matcher;
+
+        SymptomDictionary(Map<String, List<Long>> mapping) {
+            this.mapping = mapping;
+            this.matcher = new SymptomKeywordMatcher(mapping.keySet());
+        }
+    }
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import com.example.appointment.entity.Department;
 import com.example.appointment.repository.UserRepository;
 import com.example.appointment.repository.DoctorRepository;
 import com.example.appointment.repository.DepartmentRepository;
+import com.example.appointment.common.AuthPrincipal;
+import com.example.appointment.service.PrincipalCacheService;
 import com.example.appointment.service.UserService;
 import com.example.appointment.utils.UserUtils;
 import jakarta.servlet.http.HttpServletRequest;
@@ -48,6 +50,7 @@ public class UserServiceImpl implements UserService {
     private final HttpServletRequest request;
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCacheService principalCacheService;
 
     @Override
     @Transactional
@@ -146,7 +149,16 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getCurrentUser() {
-        // 优先从JwtAuthorizationFilter设置的属性中获取
+        // 优先使用JwtAuthorizationFilter解析出的认证用户
+        AuthPrincipal principal = UserUtils.getCurrentPrincipal();
+        if (principal != null) {
+            User user = userRepository.findById(principal.getId()).orElse(null);
+            if (user != null) {
+                return user;
+            }
+        }
+        
+        // 其次从请求属性中获取
         Object userIdObj = request.getAttribute("userId");
         if (userIdObj instanceof Long) {
             Long userId = (Long) userIdObj;
@@ -196,6 +208,8 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        // 用户名、状态可能变化，清除认证缓存
+        principalCacheService.invalidateUser(id);
         return convertToDTO(updatedUser);
     }
 
@@ -206,6 +220,7 @@ public class UserServiceImpl implements UserService {
             throw new RuntimeException("用户不存在");
         }
         userRepository.deleteById(id);
+        principalCacheService.invalidateUser(id);
     }
 
     @Override
@@ -278,6 +293,7 @@ public class UserServiceImpl implements UserService {
         // 更新密码（BCrypt加密）
         currentUser.setPassword(passwordEncoder.encode(updatePasswordDTO.getNewPassword()));
         userRepository.save(currentUser);
+        principalCacheService.invalidateUser(currentUser.getId());
         
         log.info("用户密码修改成功 userId={}", currentUser.getId());
     }
@@ -301,6 +317,7 @@ public class UserServiceImpl implements UserService {
         
         // 批量保存
         userRepository.saveAll(allUsers);
+        principalCacheService.invalidateAll();
         
         log.info("成功重置 {} 个用户的密码", allUsers.size());
     }
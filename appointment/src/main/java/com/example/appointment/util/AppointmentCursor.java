@@ -0,0 +1,53 @@
+package com.example.appointment.util;
+
+import com.example.appointment.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 预约列表游标：上一页最后一条记录的 (appointment_time, id)，编码为URL安全的Base64令牌
+ */
+public final class AppointmentCursor {
+
+    private final LocalDateTime appointmentTime;
+    private final Long id;
+
+    public AppointmentCursor(LocalDateTime appointmentTime, Long id) {
+        this.appointmentTime = appointmentTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = appointmentTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标令牌
+     * @return 游标，令牌为空时返回null
+     * @throws BadRequestException 令牌格式不正确
+     */
+    public static AppointmentCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new AppointmentCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.appointment.util;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 原生SQL查询结果（Object[]）中日期列的转换
+ * 驱动对 DATE/DATETIME 列可能返回 java.sql.Date/Timestamp，也可能直接返回 LocalDate/LocalDateTime
+ */
+public final class SqlDateUtil {
+
+    private SqlDateUtil() {
+    }
+
+    public static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    public static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
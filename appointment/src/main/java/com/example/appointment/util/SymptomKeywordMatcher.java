@@ -0,0 +1,188 @@
+package com.example.appointment.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 症状关键词匹配器
+ * 基于Aho-Corasick自动机，一次线性扫描即可找出文本中出现的全部关键词；
+ * 同时兼容原有的模糊匹配规则：文本中长度不少于2的片段若是某个长度不少于3的关键词的一部分，也视为命中。
+ * 实例构建后不可变，可在多线程间共享
+ */
+public final class SymptomKeywordMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] keywords;
+
+    // 节点的转移边：按字符升序存放，二分查找
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // 节点命中的关键词下标（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    // 模糊匹配：长关键词的子串 -> 关键词
+    private final Map<String, String[]> fragments;
+    private final int maxFragmentLength;
+
+    public SymptomKeywordMatcher(Collection<String> dictionary) {
+        this.keywords = dictionary.stream()
+                .filter(k -> k != null && !k.isEmpty())
+                .map(String::toLowerCase)
+                .distinct()
+                .toArray(String[]::new);
+
+        // 1. 构建字典树
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+        for (int i = 0; i < keywords.length; i++) {
+            int node = ROOT;
+            for (char c : keywords[i].toCharArray()) {
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(i);
+        }
+
+        int size = trie.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = trie.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int j = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][j] = edge.getKey();
+                edgeTargets[node][j] = edge.getValue();
+                j++;
+            }
+        }
+
+        // 2. 广度优先计算失败指针，并沿失败链合并输出
+        this.failure = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[ROOT]) {
+            failure[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int j = 0; j < edgeChars[node].length; j++) {
+                char c = edgeChars[node][j];
+                int child = edgeTargets[node][j];
+                int f = failure[node];
+                while (f != ROOT && transition(f, c) < 0) {
+                    f = failure[f];
+                }
+                int target = transition(f, c);
+                failure[child] = target >= 0 && target != child ? target : ROOT;
+                nodeOutputs.get(child).addAll(nodeOutputs.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        this.outputs = new int[size][];
+        for (int node = 0; node < size; node++) {
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // 3. 预计算长关键词的全部子串，供模糊匹配直接查表
+        Map<String, Set<String>> fragmentMap = new HashMap<>();
+        int maxLength = 0;
+        for (String keyword : keywords) {
+            if (keyword.length() < 3) {
+                continue;
+            }
+            maxLength = Math.max(maxLength, keyword.length());
+            for (int start = 0; start < keyword.length(); start++) {
+                for (int end = start + 2; end <= keyword.length(); end++) {
+                    fragmentMap.computeIfAbsent(keyword.substring(start, end), k -> new LinkedHashSet<>()).add(keyword);
+                }
+            }
+        }
+        this.fragments = new HashMap<>();
+        fragmentMap.forEach((fragment, keys) -> fragments.put(fragment, keys.toArray(new String[0])));
+        this.maxFragmentLength = maxLength;
+    }
+
+    /**
+     * 找出文本中命中的全部关键词，按首次出现的顺序返回
+     */
+    public Set<String> match(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return result;
+        }
+
+        int node = ROOT;
+        int segmentStart = 0;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? Character.toLowerCase(text.charAt(i)) : ' ';
+
+            if (!isWordChar(c)) {
+                // 片段结束：模糊匹配只需查看长度在[2, 最长关键词]之间的片段
+                int segmentLength = i - segmentStart;
+                if (segmentLength >= 2 && segmentLength <= maxFragmentLength) {
+                    String[] hits = fragments.get(text.substring(segmentStart, i).toLowerCase());
+                    if (hits != null) {
+                        result.addAll(Arrays.asList(hits));
+                    }
+                }
+                segmentStart = i + 1;
+                node = ROOT;
+                continue;
+            }
+
+            int next;
+            while ((next = transition(node, c)) < 0 && node != ROOT) {
+                node = failure[node];
+            }
+            node = next < 0 ? ROOT : next;
+            for (int keywordIndex : outputs[node]) {
+                result.add(keywords[keywordIndex]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 关键词数量
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    private int transition(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    /**
+     * 与原正则 [\u4e00-\u9fa5a-zA-Z0-9] 保持一致，其余字符视为分隔符
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= '\u4e00' && c <= '\u9fa5')
+                || (c >= 'a' && c <= 'z')
+                || (c >= '0' && c <= '9');
+    }
+}
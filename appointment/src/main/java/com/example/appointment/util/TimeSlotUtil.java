@@ -30,6 +30,16 @@ public class TimeSlotUtil {
         return "OTHER";
     }
     
+    /**
+     * 预约时间对应的排班时段：12点前为上午，其余全部归入下午排班（含允许全天预约的用户在晚间的预约）。
+     * 预约占用号源、停诊取消预约、恢复出诊重算号源都按此规则匹配排班
+     * @param appointmentTime 预约时间
+     * @return 排班时段 (MORNING/AFTERNOON)
+     */
+    public static String resolveSchedulePeriod(LocalDateTime appointmentTime) {
+        return appointmentTime.toLocalTime().getHour() < 12 ? "MORNING" : "AFTERNOON";
+    }
+
     /**
      * 获取时间段的中文名称
      * @param timeSlot 时间段标识
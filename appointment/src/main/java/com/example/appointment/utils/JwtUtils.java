@@ -46,6 +46,22 @@ public class JwtUtils {
         return claims.getSubject();
     }
 
+    /**
+     * 验签并解析token，一次解析同时完成校验与取值
+     * @return token中的声明，token无效或已过期时返回null
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public boolean validateToken(String token) {
         try {
             Jwts.parserBuilder()
@@ -1,5 +1,6 @@
 package com.example.appointment.utils;
 
+import com.example.appointment.common.AuthPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -12,7 +13,13 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 @Component
 public class UserUtils {
 
+    /**
+     * 请求属性中保存认证用户的键
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = "principal";
+
     private static final ThreadLocal<Long> currentUser = new ThreadLocal<>();
+    private static final ThreadLocal<AuthPrincipal> currentPrincipal = new ThreadLocal<>();
     private static JwtUtils jwtUtils;
 
     @Autowired
@@ -56,11 +63,45 @@ public class UserUtils {
         currentUser.set(userId);
     }
 
+    /**
+     * 获取当前请求的认证用户（由JwtAuthorizationFilter设置）
+     * @return 认证用户，如果未登录则返回null
+     */
+    public static AuthPrincipal getCurrentPrincipal() {
+        AuthPrincipal principal = currentPrincipal.get();
+        if (principal != null) {
+            return principal;
+        }
+
+        try {
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+            if (attributes != null) {
+                Object principalObj = attributes.getRequest().getAttribute(PRINCIPAL_ATTRIBUTE);
+                if (principalObj instanceof AuthPrincipal) {
+                    return (AuthPrincipal) principalObj;
+                }
+            }
+        } catch (Exception e) {
+            // 如果获取请求上下文失败，继续执行
+        }
+        return null;
+    }
+
+    /**
+     * 设置当前请求的认证用户，同时设置当前用户ID
+     * @param principal 认证用户
+     */
+    public static void setCurrentPrincipal(AuthPrincipal principal) {
+        currentPrincipal.set(principal);
+        currentUser.set(principal.getId());
+    }
+
     /**
      * 清除当前用户ID
      */
     public static void clearCurrentUserId() {
         currentUser.remove();
+        currentPrincipal.remove();
     }
     
     /**
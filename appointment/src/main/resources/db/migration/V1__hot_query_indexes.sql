@@ -0,0 +1,19 @@
+-- 热点查询的复合索引
+-- 表结构由 Hibernate 根据实体创建，本脚本在建表之后执行（见 FlywayConfig）
+
+-- 医生预约列表、时间段冲突检查、按状态统计：doctor_id 等值 + appointment_time 范围 + status 过滤
+CREATE INDEX idx_appointments_doctor_time_status ON appointments (doctor_id, appointment_time, status);
+
+-- 患者预约列表、患者时间段冲突检查
+CREATE INDEX idx_appointments_patient_time ON appointments (patient_id, appointment_time);
+
+-- 科室预约列表
+CREATE INDEX idx_appointments_department_time ON appointments (department_id, appointment_time);
+
+-- 医生排班查询与号源扣减
+CREATE INDEX idx_doctor_schedule_doctor_date_period ON doctor_schedule (doctor_id, schedule_date, period);
+
+-- 论坛外键列：按分类/作者的帖子列表、帖子下的评论列表均按 created_at 倒序分页
+CREATE INDEX idx_posts_category_created ON posts (category_id, created_at);
+CREATE INDEX idx_posts_user_created ON posts (user_id, created_at);
+CREATE INDEX idx_post_comments_post_created ON post_comments (post_id, created_at);
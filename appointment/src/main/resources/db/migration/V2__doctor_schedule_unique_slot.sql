@@ -0,0 +1,13 @@
+-- 同一医生同一日期同一时段只允许一条排班，按模板生成排班并发执行时由数据库去重（INSERT IGNORE）
+-- 建唯一索引前先清理历史重复排班，保留每组中ID最小的一条（预约不引用排班ID，删除重复行不影响已有预约）
+DELETE duplicate FROM doctor_schedule duplicate
+    JOIN doctor_schedule kept
+      ON kept.doctor_id = duplicate.doctor_id
+     AND kept.schedule_date = duplicate.schedule_date
+     AND kept.period = duplicate.period
+     AND kept.id < duplicate.id;
+
+CREATE UNIQUE INDEX uk_doctor_schedule_doctor_date_period ON doctor_schedule (doctor_id, schedule_date, period);
+
+-- 唯一索引覆盖了原有的同列普通索引
+DROP INDEX idx_doctor_schedule_doctor_date_period ON doctor_schedule;
@@ -0,0 +1,119 @@
+package com.example.appointment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentNumberGeneratorTest {
+
+    private static final int BLOCK_SIZE = 7;
+    private static final int THREADS = 16;
+    private static final int NUMBERS_PER_THREAD = 2000;
+
+    @Test
+    void concurrentCallsNeverProduceDuplicateNumbers() throws Exception {
+        // 号段来源：模拟 id_sequence 行，每次领取前进一个号段并返回号段终点
+        AtomicLong sequence = new AtomicLong();
+        AtomicInteger reservations = new AtomicInteger();
+        JdbcTemplate blockSource = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T execute(ConnectionCallback<T> action) {
+                reservations.incrementAndGet();
+                return (T) Long.valueOf(sequence.addAndGet(BLOCK_SIZE));
+            }
+        };
+
+        // 两个实例共用同一号段来源，模拟同一节点号下的多个生成器
+        List<AppointmentNumberGenerator> generators = List.of(generator(blockSource), generator(blockSource));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                AppointmentNumberGenerator generator = generators.get(t % generators.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int duplicates = 0;
+                    for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                        if (!numbers.add(generator.next())) {
+                            duplicates++;
+                        }
+                    }
+                    return duplicates;
+                }));
+            }
+            start.countDown();
+
+            int duplicates = 0;
+            for (Future<Integer> future : futures) {
+                duplicates += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(0, duplicates);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, numbers.size());
+        // 号段用完前不访问号段来源
+        assertTrue(reservations.get() <= THREADS * NUMBERS_PER_THREAD / BLOCK_SIZE + generators.size());
+    }
+
+    @Test
+    void nodeIdMustFitTwoDigits() {
+        AppointmentNumberGenerator generator = generator(new JdbcTemplate());
+        ReflectionTestUtils.setField(generator, "nodeId", 99);
+        assertDoesNotThrow(generator::validate);
+
+        ReflectionTestUtils.setField(generator, "nodeId", 100);
+        assertThrows(IllegalStateException.class, generator::validate);
+
+        ReflectionTestUtils.setField(generator, "nodeId", -1);
+        assertThrows(IllegalStateException.class, generator::validate);
+    }
+
+    private static AppointmentNumberGenerator generator(JdbcTemplate blockSource) {
+        PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+        AppointmentNumberGenerator generator = new AppointmentNumberGenerator(blockSource, transactionManager);
+        ReflectionTestUtils.setField(generator, "nodeId", 1);
+        ReflectionTestUtils.setField(generator, "blockSize", BLOCK_SIZE);
+        return generator;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.appointment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflictSweepLineTest {
+
+    private static final LocalDateTime DAY_START = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    @Test
+    void pairsExactlyIntervalApartDoNotConflict() {
+        List<AppointmentTimeIndex.Booking> bookings = List.of(
+                booking(1, DAY_START),
+                booking(2, DAY_START.plusMinutes(30)),
+                booking(3, DAY_START.plusMinutes(60)));
+
+        assertTrue(ConflictSweepLine.findConflicts(bookings, AppointmentTimeIndex.Booking::getAppointmentTime, 30).isEmpty());
+    }
+
+    @Test
+    void pairsJustUnderIntervalConflict() {
+        List<AppointmentTimeIndex.Booking> bookings = List.of(
+                booking(1, DAY_START.plusMinutes(29).plusSeconds(59)),
+                booking(2, DAY_START),
+                booking(3, DAY_START));
+
+        List<ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking>> conflicts =
+                ConflictSweepLine.findConflicts(bookings, AppointmentTimeIndex.Booking::getAppointmentTime, 30);
+
+        assertEquals(bruteForce(bookings, 30), toPairs(conflicts));
+        for (ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking> conflict : conflicts) {
+            assertTrue(!conflict.getFirst().getAppointmentTime().isAfter(conflict.getSecond().getAppointmentTime()));
+        }
+    }
+
+    @Test
+    void matchesBruteForceOnRandomDays() {
+        Random random = new Random(20261019L);
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(60);
+            int interval = 1 + random.nextInt(45);
+            List<AppointmentTimeIndex.Booking> bookings = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                // 按整分钟取时间，制造大量恰好间隔N分钟和同一时间的预约
+                LocalDateTime time = DAY_START.plusMinutes(random.nextInt(600));
+                if (random.nextInt(4) == 0) {
+                    time = time.plusSeconds(random.nextInt(60));
+                }
+                bookings.add(booking(i + 1, time));
+            }
+
+            List<ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking>> conflicts =
+                    ConflictSweepLine.findConflicts(bookings, AppointmentTimeIndex.Booking::getAppointmentTime, interval);
+
+            assertEquals(bruteForce(bookings, interval), toPairs(conflicts), "round " + round);
+        }
+    }
+
+    private static AppointmentTimeIndex.Booking booking(long id, LocalDateTime time) {
+        return new AppointmentTimeIndex.Booking(id, 1L, 1L, time);
+    }
+
+    /**
+     * 逐对比较：较小ID:较大ID -> 间隔分钟数
+     */
+    private static Map<String, Long> bruteForce(List<AppointmentTimeIndex.Booking> bookings, long intervalMinutes) {
+        Map<String, Long> pairs = new HashMap<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            for (int j = i + 1; j < bookings.size(); j++) {
+                AppointmentTimeIndex.Booking a = bookings.get(i);
+                AppointmentTimeIndex.Booking b = bookings.get(j);
+                Duration gap = Duration.between(a.getAppointmentTime(), b.getAppointmentTime()).abs();
+                if (gap.compareTo(Duration.ofMinutes(intervalMinutes)) < 0) {
+                    pairs.put(key(a, b), Math.abs(ChronoUnit.MINUTES.between(a.getAppointmentTime(), b.getAppointmentTime())));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static Map<String, Long> toPairs(List<ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking>> conflicts) {
+        Map<String, Long> pairs = new HashMap<>();
+        for (ConflictSweepLine.Conflict<AppointmentTimeIndex.Booking> conflict : conflicts) {
+            Long previous = pairs.put(key(conflict.getFirst(), conflict.getSecond()), conflict.getMinutesApart());
+            assertEquals(null, previous, "duplicate pair");
+        }
+        return pairs;
+    }
+
+    private static String key(AppointmentTimeIndex.Booking a, AppointmentTimeIndex.Booking b) {
+        long low = Math.min(a.getAppointmentId(), b.getAppointmentId());
+        long high = Math.max(a.getAppointmentId(), b.getAppointmentId());
+        return low + ":" + high;
+    }
+}
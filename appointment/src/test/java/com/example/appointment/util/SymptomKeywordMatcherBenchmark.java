@@ -0,0 +1,134 @@
+package com.example.appointment.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 症状关键词匹配基准：Aho-Corasick 自动机对比原先逐个关键词 contains 加分词模糊匹配的实现
+ * 运行方式：在IDE中执行 main，或 mvn test-compile 后以测试类路径运行 org.openjdk.jmh.Main SymptomKeywordMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymptomKeywordMatcherBenchmark {
+
+    // 词典规模：与内置词典相当、外部词典常见规模
+    @Param({"60", "1000", "5000"})
+    public int dictionarySize;
+
+    // 症状描述长度（字符数）
+    @Param({"20", "200"})
+    public int textLength;
+
+    private List<String> dictionary;
+    private SymptomKeywordMatcher matcher;
+    private String[] texts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Set<String> keywords = new LinkedHashSet<>();
+        while (keywords.size() < dictionarySize) {
+            keywords.add(randomCjk(random, 2 + random.nextInt(3)));
+        }
+        dictionary = new ArrayList<>(keywords);
+        matcher = new SymptomKeywordMatcher(dictionary);
+
+        texts = new String[256];
+        for (int i = 0; i < texts.length; i++) {
+            StringBuilder sb = new StringBuilder(textLength + 8);
+            while (sb.length() < textLength) {
+                int roll = random.nextInt(10);
+                if (roll < 3) {
+                    sb.append(dictionary.get(random.nextInt(dictionary.size())));
+                } else if (roll < 5) {
+                    sb.append('，');
+                } else {
+                    sb.append(randomCjk(random, 1 + random.nextInt(3)));
+                }
+            }
+            texts[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public Set<String> automaton() {
+        return matcher.match(nextText());
+    }
+
+    @Benchmark
+    public Set<String> legacyScan() {
+        return legacyMatch(dictionary, nextText());
+    }
+
+    private String nextText() {
+        return texts[next++ & (texts.length - 1)];
+    }
+
+    /**
+     * 原 SymptomAnalysisServiceImpl.extractSymptomKeywords 的匹配逻辑
+     */
+    private static Set<String> legacyMatch(List<String> dictionary, String symptoms) {
+        String cleanSymptoms = symptoms.toLowerCase()
+                .replaceAll("[^\\u4e00-\\u9fa5a-zA-Z0-9]", " ")
+                .replaceAll("\\s+", " ");
+
+        Set<String> keywords = new HashSet<>();
+        for (String key : dictionary) {
+            if (cleanSymptoms.contains(key)) {
+                keywords.add(key);
+            }
+        }
+        for (String key : dictionary) {
+            if (key.length() >= 3 && !keywords.contains(key)) {
+                for (String word : cleanSymptoms.split(" ")) {
+                    if (word.length() >= 2 && key.contains(word)) {
+                        keywords.add(key);
+                        break;
+                    }
+                }
+            }
+        }
+        return keywords;
+    }
+
+    private static String randomCjk(Random random, int length) {
+        // 取常用汉字区间的前一小段，使关键词之间有足够多的公共前缀和重叠
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('一' + random.nextInt(400));
+        }
+        return new String(chars);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SymptomKeywordMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}